@@ -0,0 +1,211 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import maze.*;
+import mazeGenerator.*;
+
+
+/**
+ * Golden checksums of seeded maze generation. A fixed set of mazes is generated from
+ * fixed seeds and their fingerprints (see Maze.fingerprint()) are compared with the ones
+ * recorded in GOLDEN, so that any change to a generator, to the random source or to the
+ * wall storage which changes the mazes generated is caught. Normal and tunnel mazes are
+ * generated both on the heap and in a memory-mapped file, which must agree.
+ *
+ * A change meant to alter the mazes generated records the new fingerprints with
+ * "record" and pastes them into GOLDEN.
+ */
+class GoldenChecksums {
+
+	/**
+	 * Name of class, used in error messages.
+	 */
+	protected static final String progName = "GoldenChecksums";
+
+	/**
+	 * Standard outstream.
+	 */
+	protected static final PrintStream outStream = System.out;
+
+	protected static final String generatorNames[] = { "recurBack", "modiPrim", "growingTree", "kruskal" };
+	protected static final String mazeTypes[] = { "normal", "tunnel", "hex" };
+	protected static final int sizes[][] = { { 16, 16 }, { 21, 33 } };
+	protected static final long seeds[] = { 1L, 20180501L };
+
+	/**
+	 * Tunnels of the tunnel mazes, fitting the smallest size
+	 */
+	protected static final int tunnels[][] = { { 2, 3, 12, 9 }, { 5, 0, 9, 14 } };
+
+	/**
+	 * Recorded fingerprints, in the order of the loops of main(): generator, type, size, seed
+	 */
+	protected static final long GOLDEN[] = {
+		0x111BE4DB1F6F4EC8L, // recurBack normal 16x16 seed 1
+		0xB3753B618830D22AL, // recurBack normal 16x16 seed 20180501
+		0xA82B6850A86DB31DL, // recurBack normal 21x33 seed 1
+		0x7871D43C8631D3FBL, // recurBack normal 21x33 seed 20180501
+		0x5767C52C93292FB2L, // recurBack tunnel 16x16 seed 1
+		0x56F2B8C22B2ABBD7L, // recurBack tunnel 16x16 seed 20180501
+		0xCD7FFF1A9C4F822BL, // recurBack tunnel 21x33 seed 1
+		0x04C2AAEF2D24F813L, // recurBack tunnel 21x33 seed 20180501
+		0x08E12EA218780AD6L, // recurBack hex 16x16 seed 1
+		0x24D7CC8488D6D339L, // recurBack hex 16x16 seed 20180501
+		0x91311C123D7A8DCFL, // recurBack hex 21x33 seed 1
+		0x76B7964D20BD3DDAL, // recurBack hex 21x33 seed 20180501
+		0x2F71760421B53115L, // modiPrim normal 16x16 seed 1
+		0xFBB06487A5370AC0L, // modiPrim normal 16x16 seed 20180501
+		0x7BB74AE0D2CA9DE8L, // modiPrim normal 21x33 seed 1
+		0x5FCCC22ADB46F725L, // modiPrim normal 21x33 seed 20180501
+		0xB6112967E4C7F395L, // modiPrim tunnel 16x16 seed 1
+		0x307C3401A930BD22L, // modiPrim tunnel 16x16 seed 20180501
+		0x0302B50DE36EC7A5L, // modiPrim tunnel 21x33 seed 1
+		0x7817FCA4E257D2BFL, // modiPrim tunnel 21x33 seed 20180501
+		0x9C314EDF5374AF50L, // modiPrim hex 16x16 seed 1
+		0x9D8A8BD6C03F4A69L, // modiPrim hex 16x16 seed 20180501
+		0xFA3B5D6D312CDBEDL, // modiPrim hex 21x33 seed 1
+		0xF48E86663C59309FL, // modiPrim hex 21x33 seed 20180501
+		0xDF5779FA3E197749L, // growingTree normal 16x16 seed 1
+		0xF5A9AAB5300AACA1L, // growingTree normal 16x16 seed 20180501
+		0xD70D2513E8B7DAD4L, // growingTree normal 21x33 seed 1
+		0xDFC0646BFCA28149L, // growingTree normal 21x33 seed 20180501
+		0x3E1CDAD524B0321DL, // growingTree tunnel 16x16 seed 1
+		0x596CB3BB0AA9FD19L, // growingTree tunnel 16x16 seed 20180501
+		0x1E00C71A757CB767L, // growingTree tunnel 21x33 seed 1
+		0x32BA7689978C319FL, // growingTree tunnel 21x33 seed 20180501
+		0xB435D589561A5066L, // growingTree hex 16x16 seed 1
+		0x031CEEFD740F88A1L, // growingTree hex 16x16 seed 20180501
+		0xEF8B7730C344E588L, // growingTree hex 21x33 seed 1
+		0xC9563A2C5F1156B0L, // growingTree hex 21x33 seed 20180501
+		0x94EFB346DF613F89L, // kruskal normal 16x16 seed 1
+		0x971D5C90BD6AE7E2L, // kruskal normal 16x16 seed 20180501
+		0xFD9FA86A40AE7C59L, // kruskal normal 21x33 seed 1
+		0x1B108A5DC5CE7B0CL, // kruskal normal 21x33 seed 20180501
+		0xE250971D18011E2AL, // kruskal tunnel 16x16 seed 1
+		0x0B1333DBB4D133D2L, // kruskal tunnel 16x16 seed 20180501
+		0x8E700753685F0D88L, // kruskal tunnel 21x33 seed 1
+		0xF95069D23ACAC45AL, // kruskal tunnel 21x33 seed 20180501
+		0x6CBBF4BAB6D00F57L, // kruskal hex 16x16 seed 1
+		0xB25BA2A3E14C458FL, // kruskal hex 16x16 seed 20180501
+		0xDACBB67618D3931BL, // kruskal hex 21x33 seed 1
+		0x8C794F075A251D27L, // kruskal hex 21x33 seed 20180501
+	};
+
+	/**
+	 * Print help/usage message.
+	 */
+	public static void usage(String progName) {
+		System.err.println(progName + ": [record]");
+		System.err.println("record = print the fingerprints generated now in place of checking them");
+		System.exit(1);
+	} // end of usage()
+
+	/**
+	 * Main function of the checksum suite.
+	 * @param args No argument to check the fingerprints, "record" to print them.
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean isRecord = false;
+		if (args.length == 1 && args[0].equals("record"))
+			isRecord = true;
+		else if (args.length != 0)
+			usage(progName);
+
+		Path file = Files.createTempFile(progName, ".maze");
+		int failNum = 0;
+		int index = 0;
+		try {
+			for (String generatorName : generatorNames) {
+				for (String mazeType : mazeTypes) {
+					for (int size[] : sizes) {
+						for (long seed : seeds) {
+							String name = generatorName + " " + mazeType + " " + size[0] + "x" + size[1] + " seed " + seed;
+							long fingerprint = generate(newMaze(mazeType, null), mazeType, size, generatorName, seed);
+
+							if (isRecord) {
+								outStream.printf("\t\t0x%016XL, // %s%n", fingerprint, name);
+							}
+							else if (index >= GOLDEN.length || GOLDEN[index] != fingerprint) {
+								outStream.printf("MISMATCH %s: %016X, recorded %s%n", name, fingerprint,
+										index < GOLDEN.length ? String.format("%016X", GOLDEN[index]) : "none");
+								failNum++;
+							}
+
+							// the same maze in a mapped file
+							if (!mazeType.equals("hex")) {
+								long mapped = generate(newMaze(mazeType, file), mazeType, size, generatorName, seed);
+								if (mapped != fingerprint) {
+									outStream.printf("MISMATCH %s: %016X on heap, %016X mapped%n", name, fingerprint, mapped);
+									failNum++;
+								}
+							}
+							index++;
+						}
+					}
+				}
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+
+		if (!isRecord) {
+			outStream.println(index + " mazes checked, " + failNum + " mismatches.");
+			if (failNum > 0)
+				System.exit(1);
+		}
+	} // end of main()
+
+	/**
+	 * @param mazeType "normal", "tunnel" or "hex".
+	 * @param file File to map the maze in, null for a maze on the heap.
+	 * @return An empty maze of mazeType.
+	 */
+	protected static Maze newMaze(String mazeType, Path file) {
+		if (file != null)
+			return new MappedMaze(file);
+		switch (mazeType) {
+		case "tunnel":
+			return new TunnelMaze();
+		case "hex":
+			return new HexMaze();
+		default:
+			return new NormalMaze();
+		}
+	} // end of newMaze()
+
+	/**
+	 * Generate maze and fingerprint it.
+	 * @param maze Maze to generate.
+	 * @param mazeType "normal", "tunnel" or "hex".
+	 * @param size Number of rows and columns.
+	 * @param generatorName Name of the generator, as in MazeTester.
+	 * @param seed Seed of the generator.
+	 * @return Fingerprint of the maze generated.
+	 */
+	protected static long generate(Maze maze, String mazeType, int size[], String generatorName, long seed) {
+		List<int[]> tunnelList = new ArrayList<int[]>();
+		if (mazeType.equals("tunnel"))
+			tunnelList.addAll(Arrays.asList(tunnels));
+		maze.initMaze(size[0], size[1], 0, 0, size[0] - 1, size[1] - 1, tunnelList);
+
+		MazeGenerator mazeGen = null;
+		switch (generatorName) {
+		case "modiPrim":
+			mazeGen = new ModifiedPrimsGenerator();
+			break;
+		case "recurBack":
+			mazeGen = new RecursiveBacktrackerGenerator();
+			break;
+		case "kruskal":
+			mazeGen = new KruskalGenerator();
+			break;
+		default:
+			mazeGen = new GrowingTreeGenerator();
+			break;
+		}
+		mazeGen.generateMaze(maze, seed);
+		return maze.fingerprint();
+	} // end of generate()
+
+} // end of class GoldenChecksums
@@ -0,0 +1,92 @@
+import java.io.*;
+import java.util.stream.*;
+
+import maze.*;
+import mazeGenerator.*;
+
+
+/**
+ * Throughput of bulk generation: generate many mazes of one kind with MazeBatch, each
+ * from its own seed, and report how many mazes per second were generated.
+ */
+class MazeBatchTester {
+
+	/**
+	 * Name of class, used in error messages.
+	 */
+	protected static final String progName = "MazeBatchTester";
+
+	/**
+	 * Standard outstream.
+	 */
+	protected static final PrintStream outStream = System.out;
+
+	/**
+	 * Print help/usage message.
+	 */
+	public static void usage(String progName) {
+		System.err.println(progName + ": <count> <normal | tunnel | hex> <rows> <cols> <generator> [threads]");
+		System.err.println("<count> = number of mazes to generate, seeded 0 to count - 1");
+		System.err.println("[threads] = number of worker threads, one per core if not given");
+		System.exit(1);
+	} // end of usage()
+
+	/**
+	 * Main function of the throughput tester.
+	 * @param args Number of mazes, maze type, rows, columns, generator name and
+	 * optionally the number of threads.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length != 5 && args.length != 6)
+			usage(progName);
+
+		int type = Maze.NORMAL;
+		switch (args[1]) {
+		case "normal":
+			break;
+		case "tunnel":
+			type = Maze.TUNNEL;
+			break;
+		case "hex":
+			type = Maze.HEX;
+			break;
+		default:
+			System.err.println("Unknown maze type.");
+			usage(progName);
+		}
+		long count = Long.parseLong(args[0]);
+		int rows = Integer.parseInt(args[2]);
+		int cols = Integer.parseInt(args[3]);
+		String generatorName = args[4];
+		int threads = args.length == 6 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+		int mazeType = type;
+		Stream<MazeSpec> specs = LongStream.range(0, count)
+				.mapToObj(seed -> new MazeSpec(mazeType, rows, cols, generatorName, seed));
+
+		long failNum = 0;
+		long bytes = 0;
+		try (MazeBatch batch = new MazeBatch(threads, MazeBatch.DEFAULT_QUEUE_CAPACITY)) {
+			MazeBatch.Run run = batch.generate(specs);
+			MazeBatch.Result result;
+			while ((result = run.take()) != null) {
+				if (result.error != null) {
+					if (failNum == 0)
+						outStream.println("Failed " + result.spec + ": " + result.error);
+					failNum++;
+				}
+				else {
+					bytes += result.mazeFile.length;
+				}
+			}
+
+			outStream.printf("Generated %d mazes (%d bytes) in %.3f s on %d threads, %.0f mazes per second.%n",
+					run.count(), bytes, run.elapsedNanos() / 1e9, threads, run.throughput());
+		}
+		if (failNum > 0) {
+			outStream.println(failNum + " mazes failed.");
+			System.exit(1);
+		}
+	} // end of main()
+
+} // end of class MazeBatchTester
@@ -29,18 +29,21 @@ class MazeTester {
 	 * Print help/usage message.
 	 */
 	public static void usage(String progName) {
-		System.err.println(progName + ": [input fileName] <visualize maze>");
+		System.err.println(progName + ": [input fileName] <visualize maze> [seed] [track]");
 		System.err.println("<visualize maze> = <y | n>");
+		System.err.println("[seed] = seed of the generator, to generate the same maze again");
+		System.err.println("[track] = track perfection while generating, see Maze.trackPerfection()");
 		System.exit(1);
 	} // end of usage()
 
 	/**
 	 * Main function of tester.
-	 * @param args Two arguments which are input filename and "y/n" indicating whether to visualize the maze. 
+	 * @param args Two arguments which are input filename and "y/n" indicating whether to visualize the maze,
+	 * and optionally the seed of the generator and "track" to track perfection while generating.
 	 */
 	public static void main(String[] args) {
 		// read command line arguments
-		if (args.length != 2) {
+		if (args.length < 2 || args.length > 4) {
 			System.err.println("Incorrect number of arguments.");
 			usage(progName);
 		}
@@ -62,6 +65,27 @@ class MazeTester {
 			usage(progName);
 		}
 		
+		// seed of the generator, none to generate a new maze every run, and whether
+		// to track perfection, which costs an int per cell and a union per carve
+		Long seed = null;
+		boolean isTracked = false;
+		for (int i = 2; i < args.length; i++) {
+			if (args[i].equals("track") && !isTracked) {
+				isTracked = true;
+				continue;
+			}
+			if (seed != null) {
+				System.err.println("Incorrect argument value.");
+				usage(progName);
+			}
+			try {
+				seed = Long.parseLong(args[i]);
+			} catch (NumberFormatException e) {
+				System.err.println("Incorrect seed.");
+				usage(progName);
+			}
+		}
+
 		// default values for parameters 
 		String mazeType = "normal";
 		String mazeGeneratorName = "recurBack";
@@ -149,6 +173,12 @@ class MazeTester {
 		case "growingTree":
 			mazeGen = new GrowingTreeGenerator();
 			break;
+		case "eller":
+			mazeGen = new EllerGenerator();
+			break;
+		case "kruskal":
+			mazeGen = new KruskalGenerator();
+			break;
 		default:
 			System.err.println("Unknown maze generator name.");
 			usage(progName);
@@ -156,8 +186,16 @@ class MazeTester {
 
 		outStream.println(mazeGen.getClass().getSimpleName() + " is generating the maze.");
 
-		// generate maze
-		mazeGen.generateMaze(maze);
+		// track passages while generating if asked, so that isPerfect() needs no traversal
+		if (isTracked)
+			maze.trackPerfection(false);
+
+		// generate maze, reproducibly if seeded
+		if (seed != null)
+			mazeGen.generateMaze(maze, seed);
+		else
+			mazeGen.generateMaze(maze);
+		outStream.printf("Maze fingerprint = %016X%n", maze.fingerprint());
 
 		// update whether maze should be visualised
 		maze.isVisu = isVisu;
@@ -180,10 +218,18 @@ class MazeTester {
 			case "biDirrecurBack":
 				mazeSolver = new BiDirectionalRecursiveBacktrackerSolver();
 				break;
-            // sample solver to help you get started
-            case "sample":
-//                mazeSolver = new SampleSolver();
-                break;
+			case "bfs":
+				mazeSolver = new BreadthFirstSolver();
+				break;
+			case "astar":
+				mazeSolver = new AStarSolver();
+				break;
+			case "parallelBiDir":
+				mazeSolver = new ParallelBidirectionalSolver();
+				break;
+			case "deadEnd":
+				mazeSolver = new DeadEndFillingSolver();
+				break;
 			// no solver
 			case "none":
 				break;
@@ -193,17 +239,28 @@ class MazeTester {
 			}
 
 			if (mazeSolver != null) {
-				mazeSolver.solveMaze(maze);
+				// solvers returning their path are validated on it, the others on their foot prints
+				SolveResult result = mazeSolver.solve(maze);
+				result.draw(maze);
 				outStream.println(mazeSolver.getClass().getSimpleName() + " is solving the maze.");
 				// check if solver can get out of maze
-				if (mazeSolver.isSolved()) {
+				if (result.solved) {
 					outStream.println("The maze has been solved!");
 					// display number of cells visited for solver
-					outStream.println("Number of cells visited = " + mazeSolver.cellsExplored());
+					outStream.println("Number of cells visited = " + result.cellsExplored);
+					if (mazeSolver instanceof AStarSolver)
+						outStream.println("Number of heap operations = " + ((AStarSolver) mazeSolver).heapOperations());
+					for (int i = 0; i < result.phases.length; i++)
+						outStream.printf("Phase %s took %.3f ms%n", result.phases[i], result.phaseNanos[i] / 1e6);
 					// show results from validation
 					outStream.println("Validation result:");
-					boolean isValid = maze.validate();
+					boolean isValid = result.path != null ? maze.validate(result.path) : maze.validate();
 					outStream.println("The solution is " + (isValid ? "" : "not ") + "valid!");
+					// compare the solver against the shortest path
+					outStream.println("Optimal path length = " + maze.optimalPathLength());
+					if (isValid)
+						outStream.printf("Path length / optimal = %.3f%n", maze.pathRatio());
+					outStream.printf("Cells explored / optimal = %.3f%n", maze.exploredRatio(result.cellsExplored));
 				} else {
 					outStream.println("Solver was failed!");
 				}
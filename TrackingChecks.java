@@ -0,0 +1,119 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import maze.*;
+import mazeGenerator.*;
+
+
+/**
+ * Checks of perfection tracking across initMaze(). A maze tracking its perfection
+ * (see Maze.trackPerfection()) is initialized again, to the same size and to another,
+ * and must then report an all-wall maze as not perfect, track the maze generated next
+ * as the traversal sees it, and stop tracking cleanly.
+ */
+class TrackingChecks {
+
+	/**
+	 * Name of class, used in error messages.
+	 */
+	protected static final String progName = "TrackingChecks";
+
+	/**
+	 * Standard outstream.
+	 */
+	protected static final PrintStream outStream = System.out;
+
+	protected static final String mazeTypes[] = { "normal", "tunnel", "hex", "mapped" };
+
+	/**
+	 * Sizes the maze is initialized to in turn, the second one again to reuse its storage
+	 */
+	protected static final int sizes[][] = { { 16, 16 }, { 16, 16 }, { 21, 33 } };
+
+	/**
+	 * Tunnels of the tunnel and mapped mazes, fitting the smallest size
+	 */
+	protected static final int tunnels[][] = { { 2, 3, 12, 9 }, { 5, 0, 9, 14 } };
+
+	protected static int checkNum = 0;
+	protected static int failNum = 0;
+
+
+	/**
+	 * Main function of the checks.
+	 * @param args None.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path file = Files.createTempFile(progName, ".maze");
+		try {
+			for (String mazeType : mazeTypes) {
+				Maze maze = newMaze(mazeType, file);
+				maze.isVisu = false;
+				List<int[]> tunnelList = new ArrayList<int[]>();
+				if (mazeType.equals("tunnel") || mazeType.equals("mapped"))
+					tunnelList.addAll(Arrays.asList(tunnels));
+
+				maze.initMaze(sizes[0][0], sizes[0][1], 0, 0, sizes[0][0] - 1, sizes[0][1] - 1, tunnelList);
+				maze.trackPerfection(false);
+				for (int i = 0; i < sizes.length; i++) {
+					String name = mazeType + " " + sizes[i][0] + "x" + sizes[i][1] + " init " + i;
+					maze.initMaze(sizes[i][0], sizes[i][1], 0, 0, sizes[i][0] - 1, sizes[i][1] - 1, tunnelList);
+					check(name + " tracked after initMaze", maze.perfectionTracker() != null);
+					check(name + " all walls not perfect", !maze.isPerfect());
+
+					new RecursiveBacktrackerGenerator().generateMaze(maze, 1L + i);
+					check(name + " generated perfect", maze.isPerfect());
+					check(name + " tracker agrees with verifier", maze.isPerfect() == PerfectMazeVerifier.isPerfect(maze));
+				}
+
+				try {
+					if (maze instanceof MappedMaze)
+						((MappedMaze) maze).force();
+					maze.stopTrackingPerfection();
+					check(mazeType + " stop tracking", maze.perfectionTracker() == null && maze.isPerfect());
+				} catch (RuntimeException e) {
+					check(mazeType + " stop tracking threw " + e, false);
+				}
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+
+		outStream.println(checkNum + " checks, " + failNum + " failures.");
+		if (failNum > 0)
+			System.exit(1);
+	} // end of main()
+
+	/**
+	 * @param mazeType "normal", "tunnel", "hex" or "mapped".
+	 * @param file File to map the maze in, for "mapped".
+	 * @return An empty maze of mazeType.
+	 */
+	protected static Maze newMaze(String mazeType, Path file) {
+		switch (mazeType) {
+		case "tunnel":
+			return new TunnelMaze();
+		case "hex":
+			return new HexMaze();
+		case "mapped":
+			return new MappedMaze(file);
+		default:
+			return new NormalMaze();
+		}
+	} // end of newMaze()
+
+	/**
+	 * Count a check, printing it if it failed.
+	 * @param name What was checked.
+	 * @param isPassed Whether it passed.
+	 */
+	protected static void check(String name, boolean isPassed) {
+		checkNum++;
+		if (!isPassed) {
+			outStream.println("FAIL " + name);
+			failNum++;
+		}
+	} // end of check()
+
+} // end of class TrackingChecks
@@ -0,0 +1,93 @@
+package maze;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free union-find over the ints 0 to size() - 1, e.g. cell ids, for the parallel
+ * perfection check and the parallel Kruskal's generator. Single-threaded callers use
+ * UnionFind, which unites by size without atomics.
+ *
+ * find() halves paths with compareAndSet, and union() links a root under the larger
+ * of the two roots by compareAndSet, retrying if another union took the root first,
+ * so find() and union() can run on any number of threads at once. Linking under the
+ * larger root never builds a cycle of parents, whatever the order of concurrent unions.
+ *
+ * Callers uniting on one thread pay for the atomics but never retry: an uncontended
+ * compareAndSet always succeeds.
+ */
+public class AtomicUnionFind {
+
+	/**
+	 * parent[x] is the parent of x in the forest, x itself for a root
+	 */
+	protected final AtomicIntegerArray parent;
+
+
+	/**
+	 * Construct a union-find in which every element is a set of its own.
+	 * @param size Number of elements.
+	 */
+	public AtomicUnionFind(int size) {
+		parent = new AtomicIntegerArray(size);
+		reset();
+	} // end of AtomicUnionFind()
+
+
+	/**
+	 * Make every element a set of its own again. Not safe with concurrent find() or union().
+	 */
+	public void reset() {
+		for (int x = 0; x < parent.length(); x++)
+			parent.setPlain(x, x);
+	} // end of reset()
+
+
+	/**
+	 * @return Number of elements.
+	 */
+	public int size() {
+		return parent.length();
+	} // end of size()
+
+
+	/**
+	 * @param x An element.
+	 * @return The root of the set of x.
+	 */
+	public int find(int x) {
+		int p = parent.get(x);
+		while (p != x) {
+			// path halving, losing the race only means a shorter path is not recorded
+			int gp = parent.get(p);
+			if (gp != p)
+				parent.compareAndSet(x, p, gp);
+			x = gp;
+			p = parent.get(x);
+		}
+		return x;
+	} // end of find()
+
+
+	/**
+	 * Union the sets of a and b, linking the smaller root under the larger.
+	 * @param a An element.
+	 * @param b An element.
+	 * @return False if a and b were already in the same set. Otherwise true.
+	 */
+	public boolean union(int a, int b) {
+		while (true) {
+			a = find(a);
+			b = find(b);
+			if (a == b)
+				return false;
+			if (a > b) {
+				int t = a;
+				a = b;
+				b = t;
+			}
+			if (parent.compareAndSet(a, a, b))
+				return true;
+		}
+	} // end of union()
+
+} // end of class AtomicUnionFind
@@ -0,0 +1,88 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Wall storage backend packing the wall bits into a long[] on the heap,
+ * 64 walls per word.
+ */
+public class BitWallStore implements WallStore {
+
+	/**
+	 * Wall bits, bit i is bit (i % 64) of words[i / 64]
+	 */
+	protected final long words[];
+
+	/**
+	 * Number of wall bits
+	 */
+	protected final long size;
+
+	/**
+	 * Number of changes made to the walls, see modCount()
+	 */
+	protected long modCount = 0;
+
+	/**
+	 * Construct a store of size wall bits, all walls present.
+	 * @param size Number of wall bits.
+	 */
+	public BitWallStore(long size) {
+		this.size = size;
+		words = new long[(int) ((size + 63) >>> 6)];
+		fill();
+	} // end of BitWallStore()
+
+
+	@Override
+	public boolean get(long bit) {
+		return (words[(int) (bit >>> 6)] & (1L << bit)) != 0;
+	} // end of get()
+
+
+	@Override
+	public void set(long bit) {
+		modCount++;
+		words[(int) (bit >>> 6)] |= 1L << bit;
+	} // end of set()
+
+
+	@Override
+	public void clear(long bit) {
+		modCount++;
+		words[(int) (bit >>> 6)] &= ~(1L << bit);
+	} // end of clear()
+
+
+	@Override
+	public void fill() {
+		modCount++;
+		Arrays.fill(words, -1L);
+	} // end of fill()
+
+
+	@Override
+	public long getWord(long index) {
+		return words[(int) index];
+	} // end of getWord()
+
+
+	@Override
+	public void setWord(long index, long word) {
+		modCount++;
+		words[(int) index] = word;
+	} // end of setWord()
+
+
+	@Override
+	public long size() {
+		return size;
+	} // end of size()
+
+
+	@Override
+	public long modCount() {
+		return modCount;
+	} // end of modCount()
+
+} // end of class BitWallStore
@@ -0,0 +1,160 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Set of cells of a maze, keyed by cell id, for visited, frontier and explored
+ * sets of generators and solvers.
+ *
+ * Membership is a bitset. Every word of it carries the generation it was last
+ * written in, and a word of an older generation reads as empty, so clear() is O(1)
+ * and a set can be reused for the next maze of the same size, see reuse().
+ */
+public class CellSet {
+
+	/**
+	 * Number of cells of the largest set retain() keeps for the next maze: beyond it,
+	 * the memory held while the maze is solved costs more than allocating again
+	 */
+	public final static int RETAIN_CELLS = 1 << 20;
+
+	/**
+	 * Number of cells ids are taken from
+	 */
+	protected final int capacity;
+
+	/**
+	 * Membership bits, cell id is bit (id % 64) of words[id / 64]
+	 */
+	protected final long words[];
+
+	/**
+	 * wordGen[w] is the generation words[w] was last written in
+	 */
+	protected final int wordGen[];
+
+	/**
+	 * Current generation, words of other generations are empty
+	 */
+	protected int generation = 1;
+
+	/**
+	 * Number of cells in the set
+	 */
+	protected int size = 0;
+
+	/**
+	 * Construct an empty set for cell ids from 0 to capacity - 1.
+	 * @param capacity Number of cells in the maze, see Maze.cellCount().
+	 */
+	public CellSet(int capacity) {
+		this.capacity = capacity;
+		words = new long[(capacity + 63) >>> 6];
+		wordGen = new int[words.length];
+	} // end of CellSet()
+
+
+	/**
+	 * Reuse a set for the next maze if it has the right capacity.
+	 * @param set Set used for the last maze, null if none.
+	 * @param capacity Number of cells in the next maze, see Maze.cellCount().
+	 * @return set, cleared, if it has capacity cells, otherwise a new empty set.
+	 */
+	public static CellSet reuse(CellSet set, int capacity) {
+		if (set == null || set.capacity != capacity)
+			return new CellSet(capacity);
+		set.clear();
+		return set;
+	} // end of reuse()
+
+
+	/**
+	 * Decide whether a set is worth keeping for the next maze once a maze is done.
+	 * @param set Set used for the maze.
+	 * @return set if it has at most RETAIN_CELLS cells, otherwise null, to let it go.
+	 */
+	public static CellSet retain(CellSet set) {
+		return set != null && set.capacity <= RETAIN_CELLS ? set : null;
+	} // end of retain()
+
+
+	/**
+	 * @return Number of cells ids are taken from.
+	 */
+	public int capacity() {
+		return capacity;
+	} // end of capacity()
+
+
+	/**
+	 * @param id Id of a cell.
+	 * @return True if cell id is in the set. Otherwise false.
+	 */
+	public boolean contains(int id) {
+		int w = id >>> 6;
+		return wordGen[w] == generation && (words[w] & (1L << id)) != 0;
+	} // end of contains()
+
+
+	/**
+	 * Add cell id to the set.
+	 * @param id Id of a cell.
+	 * @return True if cell id was not in the set. Otherwise false.
+	 */
+	public boolean add(int id) {
+		int w = id >>> 6;
+		if (wordGen[w] != generation) {
+			wordGen[w] = generation;
+			words[w] = 0;
+		}
+		if ((words[w] & (1L << id)) != 0)
+			return false;
+		words[w] |= 1L << id;
+		size++;
+		return true;
+	} // end of add()
+
+
+	/**
+	 * Remove cell id from the set.
+	 * @param id Id of a cell.
+	 * @return True if cell id was in the set. Otherwise false.
+	 */
+	public boolean remove(int id) {
+		if (!contains(id))
+			return false;
+		words[id >>> 6] &= ~(1L << id);
+		size--;
+		return true;
+	} // end of remove()
+
+
+	/**
+	 * Remove every cell from the set.
+	 */
+	public void clear() {
+		size = 0;
+		if (++generation == 0) {
+			// generation wrapped around, old stamps could match again
+			Arrays.fill(wordGen, 0);
+			generation = 1;
+		}
+	} // end of clear()
+
+
+	/**
+	 * @return Number of cells in the set.
+	 */
+	public int size() {
+		return size;
+	} // end of size()
+
+
+	/**
+	 * @return True if the set has no cell. Otherwise false.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	} // end of isEmpty()
+
+} // end of class CellSet
@@ -12,6 +12,34 @@ import maze.StdDraw;
  * 
  */
 public class HexMaze extends NormalMaze {
+
+	/**
+	 * directions of the six walls of a hexagon cell
+	 */
+	protected final static int hexDir[] = { EAST, NORTHEAST, NORTHWEST, WEST, SOUTHWEST, SOUTHEAST };
+
+	/**
+	 * directions of the walls a hexagon cell owns in the wall storage, see wallBit()
+	 */
+	protected final static int hexOwnDir[] = { EAST, NORTHEAST, NORTHWEST };
+
+	/**
+	 * hexDeltaJ[odd][k] is the change of offset column j = c - (r + 1) / 2 moving along
+	 * direction k from a cell on an even (odd = 0) or odd (odd = 1) row
+	 */
+	protected final static int hexDeltaJ[][] = { { 1, 0, -1, -1, -1, 0 }, { 1, 1, 0, -1, 0, 1 } };
+
+	/**
+	 * neighOffset[odd][k] is the change of cell id moving along direction k,
+	 * set up by initMaze()
+	 */
+	protected int neighOffset[][] = new int[2][NUM_DIR];
+
+	/**
+	 * wallOffset[odd][k] is the offset of the wall bit on direction k from the first bit
+	 * a cell owns, set up by initMaze()
+	 */
+	protected long wallOffset[][] = new long[2][NUM_DIR];
 	
 	public HexMaze() {
 		type = HEX;
@@ -30,16 +58,106 @@ public class HexMaze extends NormalMaze {
 			return true;
 		return false;
 	} // end of isOnEdge()
+
+
+	@Override
+	public int[] directions() {
+		return hexDir;
+	} // end of directions()
+
+
+	@Override
+	protected int[] ownDirections() {
+		return hexOwnDir;
+	} // end of ownDirections()
+
+
+	@Override
+	public int id(int r, int c) {
+		return r * sizeC + c - (r + 1) / 2;
+	} // end of id()
+
+
+	@Override
+	public int col(int id) {
+		int r = id / sizeC;
+		return id - r * sizeC + (r + 1) / 2;
+	} // end of col()
+
+
+	/**
+	 * Cells are numbered row by row with the offset column j = c - (r + 1) / 2, so
+	 * the NORTHEAST/NORTHWEST and SOUTHEAST/SOUTHWEST neighbors of cell (r, j) sit at
+	 * offset column j + 1/j on an odd row r, and j/j - 1 on an even row r.
+	 */
+	@Override
+	public int neighbour(int id, int dir) {
+		int r = id / sizeC;
+		int odd = r & 1;
+		int nextR = r + deltaR[dir];
+		int nextJ = id - r * sizeC + hexDeltaJ[odd][dir];
+		if (nextR < 0 || nextR >= sizeR || nextJ < 0 || nextJ >= sizeC)
+			return -1;
+		return id + neighOffset[odd][dir];
+	} // end of neighbour()
 	
 	
+	/**
+	 * Index of the bit in walls holding the wall on direction dir of cell id.
+	 * Rows are stored with the offset column j = c - (r + 1) / 2, so the padded grid is
+	 * rectangular with one row below and one column on both sides. Cell (r, j) sits at
+	 * p = (r + 1) * width + j + 1 = id + 2r + width + 1 and owns bits 3p (EAST),
+	 * 3p + 1 (NORTHEAST) and 3p + 2 (NORTHWEST), the other three walls are owned by its
+	 * WEST, SOUTHWEST and SOUTHEAST neighbors, see wallOffset.
+	 * @param id Id of a cell.
+	 * @param dir Direction of the wall
+	 * @return Index of the wall bit.
+	 */
+	@Override
+	protected long wallBit(int id, int dir) {
+		int r = id / sizeC;
+		return 3 * ((long) id + 2 * r + width + 1) + wallOffset[r & 1][dir];
+	} // end of wallBit()
+
+
 	@Override
 	public void initMaze(int rs, int cs, int entR, int entC, int exitR, int exitC, List<int[]> tunnelList) {
 		// set up maze constants
 		sizeR = rs;
 		sizeC = cs;
 		sizeTunnel = tunnelList.size();
-		
-		// set up map matrix
+
+		// set up wall storage, the cell view is built on demand
+		width = sizeC + 2;
+		initWalls(3L * (sizeR + 1) * width);
+		for (int odd = 0; odd < 2; odd++) {
+			for (int k = 0; k < NUM_DIR; k++) {
+				neighOffset[odd][k] = deltaR[k] * sizeC + hexDeltaJ[odd][k];
+				if (k < 3)
+					wallOffset[odd][k] = k;
+				else
+					wallOffset[odd][k] = 3 * (deltaR[k] * width + hexDeltaJ[odd][k]) + oppoDir[k];
+			}
+		}
+		entranceField = null;
+		solutionLength = 0;
+
+		// set up entrance and exit
+		if (isIn(entR, entC + (entR + 1) / 2))
+			entrance = new Cell(entR, entC + (entR + 1) / 2);
+		if (isIn(exitR, exitC + (exitR + 1) / 2))
+			exit = new Cell(exitR, exitC + (exitR + 1) / 2);
+
+                // set up recording bitset for validation
+                clearRecorded();
+	} // end of initMaze()
+
+
+	@Override
+	public Cell[][] buildCellView() {
+		if (map != null)
+			return map;
+
 		map = new Cell[sizeR][sizeC + (sizeR + 1) / 2];
 		for (int i = 0; i < sizeR; i++){
 			for (int j = (i + 1) / 2; j < sizeC + (i + 1) / 2; j++) {
@@ -48,7 +166,7 @@ public class HexMaze extends NormalMaze {
 				Cell cell = new Cell(i, j);
 				map[i][j] = cell;
 				for (int k = 0; k < 3; k++) {
-					cell.wall[k] = new Wall();
+					cell.wall[k] = new Wall(walls, wallBit(id(i, j), k));
 				}
 				for (int k = 3; k < NUM_DIR; k++) {
 					if (isIn(i + deltaR[k], j + deltaC[k])) {
@@ -58,89 +176,34 @@ public class HexMaze extends NormalMaze {
 						neigh.neigh[oppoDir[k]] = cell;
 					}
 					else
-						cell.wall[k] = new Wall();
+						cell.wall[k] = new Wall(walls, wallBit(id(i, j), k));
 				}
 			}
 		}
-		
-		// set up entrance and exit
-		if (isIn(entR, entC + (entR + 1) / 2))
-			entrance = map[entR][entC + (entR + 1) / 2];
-		if (isIn(exitR, exitC + (exitR + 1) / 2))
-			exit = map[exitR][exitC + (exitR + 1) / 2];
 
-                // set up recording matrix for validation
-                isRecorded = new boolean[sizeR][sizeC + (sizeR + 1) / 2];
-	} // end of initMaze()
-	
-	
-	@Override
-	public boolean isPerfect() {
-		boolean visited[][] = new boolean[sizeR][sizeC];
-		Queue<Cell> queue = new LinkedList<Cell>();
-		
-		queue.add(entrance);
-		
-		while (!queue.isEmpty()) {
-			Cell currCell = queue.poll();
-			visited[currCell.r][currCell.c - (currCell.r + 1) / 2] = true;
-			int visitedNeigh = 0;
-			for (int i = 0; i < NUM_DIR; i++) {
-				Cell nextCell = currCell.neigh[i];
-				if (!isIn(nextCell) || currCell.wall[i].present)
-					continue;
-				if (visited[nextCell.r][nextCell.c - (nextCell.r + 1) / 2])
-					visitedNeigh += 1; 
-				else
-					queue.add(nextCell);
-			}
-			
-			if (visitedNeigh > 1)
-				return false;
-		}
-		
-		for (int i = 0; i < sizeR; i++)
-			for (int j = 0; j < sizeC; j++)
-				if (!visited[i][j])
-					return false;
-		
-		return true;
-	} // end of isPerfect()
-	
-	
+		// re-point entrance and exit to the view
+		if (entrance != null)
+			entrance = map[entrance.r][entrance.c];
+		if (exit != null)
+			exit = map[exit.r][exit.c];
+
+		return map;
+	} // end of buildCellView()
+
+
 	@Override
 	public void draw() {
 		// draw nothing if visualization is switched off
 		if (!isVisu)
 			return;
-		
-		for (int i = 0; i < sizeR; i++)
-			for (int j = (i + 1) / 2; j < sizeC + (i + 1) / 2; j++)
-				for (int k = 0; k < NUM_DIR; k++) {
-					if (map[i][j].wall[k] != null)
-						map[i][j].wall[k].drawn = false;
-				}
-		
 
-		for (int k = 0; k < NUM_DIR; k++) {
-			if (entrance.neigh[k] == null) {
-				entrance.wall[k].drawn = true;
-				break;
-			}
-		}
-		
+		int entranceDir = openingDir(entrance);
+		int exitDir = openingDir(exit);
 
-		for (int k = 0; k < NUM_DIR; k++) {
-			if (exit.neigh[k] == null) {
-				exit.wall[k].drawn = true;
-				break;
-			}
-		}
-		
 		StdDraw.setCanvasSize(900, 900);
 		StdDraw.setXscale(-1, sizeC + 1.5);
 		StdDraw.setYscale(-1, sizeR+1);
-		
+
 
 		// draw entrance
 		StdDraw.setPenColor(StdDraw.BLUE);
@@ -152,91 +215,48 @@ public class HexMaze extends NormalMaze {
 		StdDraw.setPenColor(StdDraw.RED);
 		if (exit != null) {
 			StdDraw.filledCircle(exit.r % 2 * 0.5 + exit.c - (exit.r + 1) / 2 + 0.5, exit.r + 0.5, 0.375);
-		}        
+		}
 
 
-		// draw walls
-		double halfEdge = 1.0 / 3; // Math.sqrt(3) / 6; 
+		// draw walls, each cell draws the walls it owns and the border walls on its
+		// WEST, SOUTHWEST and SOUTHEAST, except for the openings of entrance and exit
+		double halfEdge = 1.0 / 3; // Math.sqrt(3) / 6;
 		StdDraw.setPenColor(StdDraw.BLACK);
 		for (int r = 0; r < sizeR; r++) {
 			for (int c = 0; c < sizeC; c++) {
 				double shift = r % 2 * 0.5;
 				int cc = c + (r + 1) / 2;
-				if (map[r][cc].wall[EAST].present && !map[r][cc].wall[EAST].drawn) { StdDraw.line(c+1+shift, r+0.5-halfEdge, c+1+shift, r+0.5+halfEdge); map[r][cc].wall[EAST].drawn = true; }
-				if (map[r][cc].wall[NORTHEAST].present && !map[r][cc].wall[NORTHEAST].drawn) { StdDraw.line(c+0.5+shift, r+0.5+2*halfEdge, c+1+shift, r+0.5+halfEdge); map[r][cc].wall[NORTHEAST].drawn = true; }
-				if (map[r][cc].wall[NORTHWEST].present && !map[r][cc].wall[NORTHWEST].drawn) { StdDraw.line(c+0.5+shift, r+0.5+2*halfEdge, c+shift, r+0.5+halfEdge); map[r][cc].wall[NORTHWEST].drawn = true; }
-				if (map[r][cc].wall[WEST].present && !map[r][cc].wall[WEST].drawn) { StdDraw.line(c+shift, r+0.5-halfEdge, c+shift, r+0.5+halfEdge); map[r][cc].wall[WEST].drawn = true; }
-				if (map[r][cc].wall[SOUTHWEST].present && !map[r][cc].wall[SOUTHWEST].drawn) { StdDraw.line(c+shift, r+0.5-halfEdge, c+0.5+shift, r+0.5-2*halfEdge); map[r][cc].wall[SOUTHWEST].drawn = true; }
-				if (map[r][cc].wall[SOUTHEAST].present && !map[r][cc].wall[SOUTHEAST].drawn) { StdDraw.line(c+1+shift, r+0.5-halfEdge, c+0.5+shift, r+0.5-2*halfEdge); map[r][cc].wall[SOUTHEAST].drawn = true; }
+				int id = id(r, cc);
+				int skipDir = -1;
+				if (r == entrance.r && cc == entrance.c)
+					skipDir = entranceDir;
+				else if (r == exit.r && cc == exit.c)
+					skipDir = exitDir;
+				if (skipDir != EAST && walls.get(wallBit(id, EAST))) StdDraw.line(c+1+shift, r+0.5-halfEdge, c+1+shift, r+0.5+halfEdge);
+				if (skipDir != NORTHEAST && walls.get(wallBit(id, NORTHEAST))) StdDraw.line(c+0.5+shift, r+0.5+2*halfEdge, c+1+shift, r+0.5+halfEdge);
+				if (skipDir != NORTHWEST && walls.get(wallBit(id, NORTHWEST))) StdDraw.line(c+0.5+shift, r+0.5+2*halfEdge, c+shift, r+0.5+halfEdge);
+				if (c == 0 && skipDir != WEST && walls.get(wallBit(id, WEST))) StdDraw.line(c+shift, r+0.5-halfEdge, c+shift, r+0.5+halfEdge);
+				if (neighbour(id, SOUTHWEST) < 0 && skipDir != SOUTHWEST && walls.get(wallBit(id, SOUTHWEST))) StdDraw.line(c+shift, r+0.5-halfEdge, c+0.5+shift, r+0.5-2*halfEdge);
+				if (neighbour(id, SOUTHEAST) < 0 && skipDir != SOUTHEAST && walls.get(wallBit(id, SOUTHEAST))) StdDraw.line(c+1+shift, r+0.5-halfEdge, c+0.5+shift, r+0.5-2*halfEdge);
 			}
 		}
 	} // end of draw()
-	
-	
+
+
 	@Override
-	public void drawFtPrt(Cell cell) {
+	public void drawFtPrt(int id) {
                 // record every cell drawn
-                isRecorded[cell.r][cell.c] = true;
+                isRecorded[id >>> 6] |= 1L << id;
 
 		// draw nothing if visualization is switched off
 		if (!isVisu)
 			return;
-		
+
+		int r = row(id);
+		int c = col(id);
 		StdDraw.setPenColor(StdDraw.GRAY);
-		StdDraw.filledCircle(cell.r % 2 * 0.5 + cell.c - (cell.r + 1) / 2 + 0.5, cell.r + 0.5, 0.25);
+		StdDraw.filledCircle(r % 2 * 0.5 + c - (r + 1) / 2 + 0.5, r + 0.5, 0.25);
 	} // end of drawFtPrt()
-	
-
-        @Override
-        public boolean validate() {
-                boolean isValid = true;
-                int pathLength = 0;
-                int count = 0;
-
-                int stepCount[][] = new int[sizeR][sizeC + (sizeR + 1) / 2];
-                Queue<Cell> queue = new LinkedList<Cell>();
-
-                queue.add(entrance);
-                stepCount[entrance.r][entrance.c] = 1;
-
-                while (!queue.isEmpty()) {
-                        Cell cell = queue.poll();
-                        count++;
-                        int step = stepCount[cell.r][cell.c];
-
-                        for (int i = 0; i < Maze.NUM_DIR; i++) {
-                                Cell next = cell.neigh[i];
-                                if (next != null && !cell.wall[i].present && isRecorded[next.r][next.c] && stepCount[next.r][next.c] == 0) {
-                                        stepCount[next.r][next.c] = step + 1;
-                                        queue.add(next);
-                                }
-                        }
-                }
-
-                if (stepCount[exit.r][exit.c] == 0) {
-                        isValid = false;
-                        System.out.println("[Validation] Exit is not reached.");
-                }
-                else {
-                        pathLength = stepCount[exit.r][exit.c];
-                }
-
-                for (int i = 0; i < sizeR; i++){
-                        for (int j = 0; j < sizeC + (sizeR + 1) / 2; j++) {
-                                if (isValid && isRecorded[i][j] && stepCount[i][j] == 0) {
-                                        isValid = false;
-                                        System.out.println("[Validation] Visited cell not reachable.");
-                                }
-                        }
-                }
-
-                if (isValid) {
-                        System.out.println("[Validation] Number of cells visited = " + count);
-                        System.out.println("[Validation] Path length of the solution = " + pathLength);
-                }
-
-                return isValid;
-        } // end of validate()
 
 
 } // end of class HexMaze
@@ -0,0 +1,54 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Array of ints in a memory-mapped region of a file, indexed by long, for scratch
+ * state too large for the heap, e.g. the queue of a traversal of a MappedMaze.
+ *
+ * A single mapping is limited to 2GB, so the region is mapped in segments of
+ * 2^SEGMENT_SHIFT ints, as MappedWallStore does.
+ */
+class MappedIntArray {
+
+	/**
+	 * log2 of the number of ints in a segment, i.e. 1GB segments
+	 */
+	protected final static int SEGMENT_SHIFT = 28;
+
+	/**
+	 * Mapped segments, int i is int (i % 2^SEGMENT_SHIFT) of segments[i >>> SEGMENT_SHIFT]
+	 */
+	protected final MappedByteBuffer segments[];
+
+	/**
+	 * Map length ints of channel read-write. The ints are left as they are in the file.
+	 * @param channel Channel of the file, opened for reading and writing.
+	 * @param offset Position of the first int in the file.
+	 * @param length Number of ints.
+	 * @throws IOException If the region cannot be mapped.
+	 */
+	MappedIntArray(FileChannel channel, long offset, long length) throws IOException {
+		segments = new MappedByteBuffer[(int) ((length + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT)];
+		for (int i = 0; i < segments.length; i++) {
+			long first = (long) i << SEGMENT_SHIFT;
+			long count = Math.min(length - first, 1L << SEGMENT_SHIFT);
+			segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset + 4 * first, 4 * count);
+			segments[i].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	} // end of MappedIntArray()
+
+
+	int get(long index) {
+		return segments[(int) (index >>> SEGMENT_SHIFT)].getInt((int) (index & ((1L << SEGMENT_SHIFT) - 1)) << 2);
+	} // end of get()
+
+
+	void set(long index, int value) {
+		segments[(int) (index >>> SEGMENT_SHIFT)].putInt((int) (index & ((1L << SEGMENT_SHIFT) - 1)) << 2, value);
+	} // end of set()
+
+} // end of class MappedIntArray
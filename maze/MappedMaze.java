@@ -0,0 +1,314 @@
+package maze;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Class of a rectangular maze, with or without tunnels, whose walls and tunnels live
+ * in a memory-mapped file instead of the heap, for mazes too large to keep in memory.
+ * The file is written by initMaze() and can be reopened by open(), read only if the
+ * maze is only to be solved, by a later run or by another JVM.
+ *
+ * Layout of the file, all little-endian:
+ * a header of HEADER_BYTES bytes holding MAGIC, VERSION, type, sizeR, sizeC,
+ * entrance row and column, exit row and column and the number n of tunnel ends,
+ * then the tunnel table of n (id, id of the other end) int pairs sorted by id,
+ * then the wall words laid out as in NormalMaze.wallBit().
+ *
+ * Out of core so far: the walls, the tunnels and isPerfect(), which traverses the
+ * maze on scratch state mapped from a temporary file next to the maze file. Cell ids
+ * are still ints, so a maze has at most Integer.MAX_VALUE - 63 cells, about
+ * 46000 x 46000, and the rest still keeps per-cell state on the heap: the foot print
+ * bitset (1 bit per cell), validate() (8 bytes per cell, while validate(int[]) only
+ * walks the path given), trackPerfection() and the generators and solvers. Long ids
+ * and mapped scratch state for those are left to do.
+ */
+public class MappedMaze extends NormalMaze {
+
+	/**
+	 * "MZMP", first int of a maze file
+	 */
+	public final static int MAGIC = 0x4D5A4D50;
+
+	/**
+	 * Version of the file layout
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * Size of the header, in bytes
+	 */
+	protected final static int HEADER_BYTES = 64;
+
+	/**
+	 * File backing the maze
+	 */
+	protected final Path file;
+
+	/**
+	 * Whether the maze was opened read only
+	 */
+	protected boolean readOnly;
+
+	/**
+	 * Channel of the file while the maze is being mapped
+	 */
+	protected FileChannel channel;
+
+	/**
+	 * Mapped tunnel table, ends sorted by id
+	 */
+	protected MappedByteBuffer tunnels;
+
+	/**
+	 * Number of tunnel ends in the tunnel table
+	 */
+	protected int tunnelEnds;
+
+
+	/**
+	 * Construct a maze to be written to file by initMaze().
+	 * @param file File backing the maze, replaced if it exists.
+	 */
+	public MappedMaze(Path file) {
+		this.file = file;
+	} // end of MappedMaze()
+
+
+	/**
+	 * Reopen a maze written by initMaze() of a MappedMaze.
+	 * @param file File backing the maze.
+	 * @param readOnly True to map the maze read only, its walls can then not be changed.
+	 * @return The maze.
+	 * @throws IOException If the file cannot be read or is not a maze file.
+	 */
+	public static MappedMaze open(Path file, boolean readOnly) throws IOException {
+		MappedMaze maze = new MappedMaze(file);
+		maze.readOnly = readOnly;
+		try (FileChannel channel = readOnly ? FileChannel.open(file, StandardOpenOption.READ)
+				: FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			maze.channel = channel;
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt(0) != MAGIC)
+				throw new IOException(file + " is not a maze file");
+			if (header.getInt(4) != VERSION)
+				throw new IOException("Unsupported maze file version " + header.getInt(4));
+
+			maze.type = header.getInt(8);
+			maze.sizeR = header.getInt(12);
+			maze.sizeC = header.getInt(16);
+			maze.tunnelEnds = header.getInt(36);
+			maze.sizeTunnel = maze.tunnelEnds / 2;
+			maze.mapTunnels();
+			maze.width = maze.sizeC + 1;
+			maze.walls = new MappedWallStore(channel, HEADER_BYTES + 8L * maze.tunnelEnds,
+					2L * (maze.sizeR + 1) * maze.width, readOnly);
+			maze.entrance = new Cell(header.getInt(20), header.getInt(24));
+			maze.exit = new Cell(header.getInt(28), header.getInt(32));
+			maze.isRecorded = new long[(maze.sizeR * maze.sizeC + 63) >>> 6];
+		} finally {
+			maze.channel = null;
+		}
+		return maze;
+	} // end of open()
+
+
+	@Override
+	public void initMaze(int rs, int cs, int entR, int entC, int exitR, int exitC, List<int[]> tunnelList) {
+		if ((long) rs * cs > Integer.MAX_VALUE - 63)
+			throw new IllegalArgumentException("Maze of " + rs + " x " + cs + " cells has too many cells for int ids");
+		type = tunnelList.isEmpty() ? NORMAL : TUNNEL;
+		readOnly = false;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			this.channel = channel;
+
+			// header
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			int fields[] = { MAGIC, VERSION, type, rs, cs, entR, entC, exitR, exitC, 2 * tunnelList.size() };
+			for (int i = 0; i < fields.length; i++)
+				header.putInt(4 * i, fields[i]);
+			header.force();
+
+			// tunnel table, sorted by id so that tunnel() can binary search it
+			long ends[] = new long[2 * tunnelList.size()];
+			for (int i = 0; i < tunnelList.size(); i++) {
+				long from = (long) tunnelList.get(i)[0] * cs + tunnelList.get(i)[1];
+				long to = (long) tunnelList.get(i)[2] * cs + tunnelList.get(i)[3];
+				ends[2 * i] = from << 32 | to;
+				ends[2 * i + 1] = to << 32 | from;
+			}
+			Arrays.sort(ends);
+			tunnelEnds = ends.length;
+			if (tunnelEnds > 0) {
+				MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES, 8L * tunnelEnds);
+				table.order(ByteOrder.LITTLE_ENDIAN);
+				for (int i = 0; i < tunnelEnds; i++) {
+					table.putInt(8 * i, (int) (ends[i] >>> 32));
+					table.putInt(8 * i + 4, (int) ends[i]);
+				}
+				table.force();
+			}
+			mapTunnels();
+
+			// walls, mapped by newWallStore()
+			super.initMaze(rs, cs, entR, entC, exitR, exitC, tunnelList);
+			if (tracker != null) {
+				for (int i = 0; i < tunnelEnds; i++) {
+					int end = tunnels.getInt(8 * i);
+					int other = tunnels.getInt(8 * i + 4);
+					if (end < other)
+						tracker.carve(end, other);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.channel = null;
+		}
+	} // end of initMaze()
+
+
+	/**
+	 * Map the tunnel table of the file read only.
+	 * @throws IOException If the table cannot be mapped.
+	 */
+	protected void mapTunnels() throws IOException {
+		tunnels = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, 8L * tunnelEnds);
+		tunnels.order(ByteOrder.LITTLE_ENDIAN);
+	} // end of mapTunnels()
+
+
+	/**
+	 * The walls are mapped right after the tunnel table.
+	 */
+	@Override
+	protected WallStore newWallStore(long size) {
+		try {
+			MappedWallStore store = new MappedWallStore(channel, HEADER_BYTES + 8L * tunnelEnds, size, false);
+			store.fill();
+			return store;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	} // end of newWallStore()
+
+
+	@Override
+	public int tunnel(int id) {
+		int lo = 0;
+		int hi = tunnelEnds - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int end = tunnels.getInt(8 * mid);
+			if (end < id)
+				lo = mid + 1;
+			else if (end > id)
+				hi = mid - 1;
+			else
+				return tunnels.getInt(8 * mid + 4);
+		}
+		return -1;
+	} // end of tunnel()
+
+
+	@Override
+	public int tunnelEnd(int i) {
+		if (i < 0 || i >= tunnelEnds)
+			throw new IndexOutOfBoundsException("Maze has no tunnel end " + i);
+		return tunnels.getInt(8 * i);
+	} // end of tunnelEnd()
+
+
+	/**
+	 * Checked without per-cell state on the heap: a maze with exactly cellCount() - 1
+	 * passages is perfect iff a breadth-first search from the entrance visits every cell,
+	 * the search keeping its visited bits and queue in a temporary file next to the maze
+	 * file, deleted once done.
+	 */
+	@Override
+	public boolean isPerfect() {
+		if (tracker != null && tracker.isValid())
+			return tracker.isPerfect();
+
+		// every passage counted once, at the cell owning its wall, and every tunnel
+		int cellNum = sizeR * sizeC;
+		long passages = sizeTunnel;
+		for (int id = 0; id < cellNum; id++) {
+			if (isOpen(id, EAST) && neighbour(id, EAST) >= 0)
+				passages++;
+			if (isOpen(id, NORTH) && neighbour(id, NORTH) >= 0)
+				passages++;
+		}
+		if (passages != cellNum - 1)
+			return false;
+
+		try {
+			Path scratch = Files.createTempFile(file.toAbsolutePath().getParent(), "maze", ".scratch");
+			try (FileChannel channel = FileChannel.open(scratch, StandardOpenOption.READ,
+					StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+				// mapping past the end of the empty file grows it with zeros, i.e. nothing visited
+				MappedWallStore visited = new MappedWallStore(channel, 0, cellNum, false);
+				MappedIntArray queue = new MappedIntArray(channel, 8 * ((cellNum + 63L) >>> 6), cellNum);
+				int dir[] = directions();
+				int start = id(entrance.r, entrance.c);
+				visited.set(start);
+				queue.set(0, start);
+				long head = 0;
+				long tail = 1;
+				while (head < tail) {
+					int id = queue.get(head++);
+					for (int k : dir) {
+						int next = neighbour(id, k);
+						if (next >= 0 && isOpen(id, k) && !visited.get(next)) {
+							visited.set(next);
+							queue.set(tail++, next);
+						}
+					}
+					int next = tunnel(id);
+					if (next >= 0 && !visited.get(next)) {
+						visited.set(next);
+						queue.set(tail++, next);
+					}
+				}
+				return tail == cellNum;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	} // end of isPerfect()
+
+
+	@Override
+	public Cell[][] buildCellView() {
+		if (map == null) {
+			super.buildCellView();
+			for (int i = 0; i < tunnelEnds; i++) {
+				int from = tunnels.getInt(8 * i);
+				int to = tunnels.getInt(8 * i + 4);
+				map[row(from)][col(from)].tunnelTo = map[row(to)][col(to)];
+			}
+		}
+		return map;
+	} // end of buildCellView()
+
+
+	/**
+	 * Write the changes made to the walls back to the file.
+	 */
+	public void force() {
+		WallStore store = tracker == null ? walls : ((TrackingWallStore) walls).inner();
+		((MappedWallStore) store).force();
+	} // end of force()
+
+} // end of class MappedMaze
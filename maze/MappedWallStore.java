@@ -0,0 +1,138 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Wall storage backend packing the wall bits into a memory-mapped region of a file,
+ * 64 walls per little-endian word. Pages are read in by the OS on demand, so the
+ * store costs no heap however large the maze is.
+ *
+ * A single mapping is limited to 2GB, so the region is mapped in segments of
+ * 2^SEGMENT_SHIFT words.
+ */
+public class MappedWallStore implements WallStore {
+
+	/**
+	 * log2 of the number of words in a segment, i.e. 1GB segments
+	 */
+	protected final static int SEGMENT_SHIFT = 27;
+
+	/**
+	 * Mapped segments, word w is word (w % 2^SEGMENT_SHIFT) of segments[w >>> SEGMENT_SHIFT]
+	 */
+	protected final MappedByteBuffer segments[];
+
+	/**
+	 * Number of wall bits
+	 */
+	protected final long size;
+
+	/**
+	 * Number of changes made to the walls, see modCount()
+	 */
+	protected long modCount = 0;
+
+	/**
+	 * Map the wall bits of a store in channel. The walls are left as they are in the file.
+	 * @param channel Channel of the file, opened for reading (and writing if not readOnly).
+	 * @param offset Position of the first word in the file.
+	 * @param size Number of wall bits.
+	 * @param readOnly True to map the walls read only.
+	 * @throws IOException If the region cannot be mapped.
+	 */
+	public MappedWallStore(FileChannel channel, long offset, long size, boolean readOnly) throws IOException {
+		this.size = size;
+		long words = (size + 63) >>> 6;
+		FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+		segments = new MappedByteBuffer[(int) ((words + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT)];
+		for (int i = 0; i < segments.length; i++) {
+			long first = (long) i << SEGMENT_SHIFT;
+			long count = Math.min(words - first, 1L << SEGMENT_SHIFT);
+			segments[i] = channel.map(mode, offset + 8 * first, 8 * count);
+			segments[i].order(ByteOrder.LITTLE_ENDIAN);
+		}
+	} // end of MappedWallStore()
+
+
+	/**
+	 * @param bit Index of a wall bit.
+	 * @return Byte position in its segment of the word holding the bit.
+	 */
+	private static int position(long bit) {
+		return (int) ((bit >>> 6) & ((1L << SEGMENT_SHIFT) - 1)) << 3;
+	} // end of position()
+
+
+	@Override
+	public boolean get(long bit) {
+		return (segments[(int) (bit >>> (SEGMENT_SHIFT + 6))].getLong(position(bit)) & (1L << bit)) != 0;
+	} // end of get()
+
+
+	@Override
+	public void set(long bit) {
+		modCount++;
+		MappedByteBuffer segment = segments[(int) (bit >>> (SEGMENT_SHIFT + 6))];
+		int pos = position(bit);
+		segment.putLong(pos, segment.getLong(pos) | (1L << bit));
+	} // end of set()
+
+
+	@Override
+	public void clear(long bit) {
+		modCount++;
+		MappedByteBuffer segment = segments[(int) (bit >>> (SEGMENT_SHIFT + 6))];
+		int pos = position(bit);
+		segment.putLong(pos, segment.getLong(pos) & ~(1L << bit));
+	} // end of clear()
+
+
+	@Override
+	public void fill() {
+		modCount++;
+		for (MappedByteBuffer segment : segments) {
+			for (int pos = 0; pos < segment.limit(); pos += 8)
+				segment.putLong(pos, -1L);
+		}
+	} // end of fill()
+
+
+	@Override
+	public long getWord(long index) {
+		return segments[(int) (index >>> SEGMENT_SHIFT)].getLong(position(index << 6));
+	} // end of getWord()
+
+
+	@Override
+	public void setWord(long index, long word) {
+		modCount++;
+		segments[(int) (index >>> SEGMENT_SHIFT)].putLong(position(index << 6), word);
+	} // end of setWord()
+
+
+	@Override
+	public long size() {
+		return size;
+	} // end of size()
+
+
+	@Override
+	public long modCount() {
+		return modCount;
+	} // end of modCount()
+
+
+	/**
+	 * Write the changes made to the walls back to the file.
+	 */
+	public void force() {
+		for (MappedByteBuffer segment : segments) {
+			if (!segment.isReadOnly())
+				segment.force();
+		}
+	} // end of force()
+
+} // end of class MappedWallStore
@@ -9,11 +9,17 @@ import java.util.List;
  *
  * Abstract class of Maze defines the interface 
  * and a set of constants common for every type of maze in the assignment.
- * solvers require that:
- * all cells are stored in matrix map[][], 
+ * 
+ * The walls live in a compact WallStore, and cells are addressed by integer id
+ * (see id(), neighbour(), isOpen(), carve() and tunnel()), which is what the
+ * generators and solvers of this package work on.
+ * 
+ * map[][] is null until buildCellView() is called. The view it builds is a matrix of
+ * Cell objects on the WallStore for code working on cells, in which
  * map[r][c].r == r and map[r][c].c == c,  
  * all neighbor cell objects are assigned correctly for each cell, 
- * and same wall object are shared by two cell objects next to the wall
+ * and same wall object are shared by two cell objects next to the wall,
+ * a Wall reading and writing its bit of the store through isPresent()/setPresent().
  */
 public abstract class Maze {
 	
@@ -72,12 +78,180 @@ public abstract class Maze {
 	 */
 	public abstract void initMaze(int rs, int cs, int entR, int entC, int exitR, int exitC, List<int[]> tunnelList);
 
+	/**
+	 * Restore the all-wall maze built by initMaze() and forget the foot prints drawn,
+	 * in place, so that the maze can be generated again without reallocating it.
+	 * Size, entrance, exit, tunnels and the cell view (if built) are kept.
+	 */
+	public abstract void reset();
+
+	/**
+	 * Build the Cell/Wall object view of the maze into map[][], if not built yet.
+	 * The walls of the view read and write the wall storage of the maze, and
+	 * entrance and exit are re-pointed to the cells of the view.
+	 * @return The matrix map[][].
+	 */
+	public abstract Cell[][] buildCellView();
+
+	// cell id topology:
+	// every cell has a dense integer id from 0 to cellCount() - 1, so generators and
+	// solvers can keep their state in flat int[], long[] or boolean[] arrays indexed by id.
+	// Cells are numbered row by row, so row r holds ids r * sizeC to (r + 1) * sizeC - 1.
+	// Directions are the same as for map[][], a direction the cell has no neighbor on
+	// (e.g. NORTHEAST of a square cell, or off the edge) gives neighbor id -1.
+
+	/**
+	 * @return Number of cells in the maze.
+	 */
+	public abstract int cellCount();
+
+	/**
+	 * @param r Row coordinate of a cell, as in map[r][c].
+	 * @param c Column coordinate of a cell, as in map[r][c].
+	 * @return Id of the cell.
+	 */
+	public abstract int id(int r, int c);
+
+	/**
+	 * @param id Id of a cell.
+	 * @return Row coordinate of the cell, as in map[r][c].
+	 */
+	public abstract int row(int id);
+
+	/**
+	 * @param id Id of a cell.
+	 * @return Column coordinate of the cell, as in map[r][c].
+	 */
+	public abstract int col(int id);
+
+	/**
+	 * @return Directions a cell of the maze can have a neighbor on, e.g. EAST, NORTH,
+	 * WEST and SOUTH for a square cell. Not to be modified.
+	 */
+	public abstract int[] directions();
+
+	/**
+	 * @param id Id of a cell.
+	 * @param dir Direction.
+	 * @return Id of the neighbor of cell id on direction dir, -1 if there is none.
+	 */
+	public abstract int neighbour(int id, int dir);
+
+	/**
+	 * @param id Id of a cell.
+	 * @param dir Direction of a wall of the cell, may be a wall on the edge of the maze.
+	 * @return True if the wall on direction dir of cell id is knocked down. Otherwise false.
+	 */
+	public abstract boolean isOpen(int id, int dir);
+
+	/**
+	 * Knock down the wall on direction dir of cell id, which is the wall of its neighbor
+	 * on oppoDir[dir] as well.
+	 * @param id Id of a cell.
+	 * @param dir Direction of a wall of the cell, may be a wall on the edge of the maze.
+	 */
+	public abstract void carve(int id, int dir);
+
+	/**
+	 * @param id Id of a cell.
+	 * @return Id of the cell at the other end of the tunnel from cell id, -1 if there is none.
+	 */
+	public int tunnel(int id) {
+		return -1;
+	} // end of tunnel()
+
+	/**
+	 * @param id Id of a cell.
+	 * @return True if cell id is an end of a tunnel. Otherwise false.
+	 */
+	public boolean isTunnel(int id) {
+		return tunnel(id) >= 0;
+	} // end of isTunnel()
+
+	/**
+	 * Go through the tunnels without scanning the cells, in a maze of type TUNNEL.
+	 * @param i Index of a tunnel end, below 2 * sizeTunnel.
+	 * @return Id of the cell at tunnel end i, both ends of every tunnel being listed.
+	 */
+	public int tunnelEnd(int i) {
+		throw new IndexOutOfBoundsException("Maze has no tunnel end " + i);
+	} // end of tunnelEnd()
+
+	/**
+	 * Start tracking passages and connectivity as walls are knocked down, e.g. by a
+	 * generator, so that isPerfect() answers from counters instead of traversing the maze.
+	 * Call it before buildCellView(), as a view built before is dropped.
+	 * @param failFast True to throw IllegalStateException from the knock down which
+	 * closes a loop, false to only record it in perfectionTracker().
+	 */
+	public abstract void trackPerfection(boolean failFast);
+
+	/**
+	 * Stop tracking passages started by trackPerfection(). A cell view built is dropped.
+	 */
+	public abstract void stopTrackingPerfection();
+
+	/**
+	 * @return The tracker of passages if trackPerfection() is on, null otherwise.
+	 */
+	public abstract PerfectionTracker perfectionTracker();
+
 	/**
 	 * Check whether the maze is a perfect maze
 	 * @return true if it is perfect maze, i.e. every cell can be visited and there is no loop.
 	 */
 	public abstract boolean isPerfect();
 	
+	/**
+	 * 64-bit hash of the maze: its type, size, tunnels and every wall bit. Two mazes
+	 * with the same fingerprint have the same walls in all likelihood, whichever wall
+	 * storage backs them, so it identifies the output of a seeded generator.
+	 * @return The fingerprint.
+	 */
+	public abstract long fingerprint();
+
+	/**
+	 * Distance of cell id from the entrance along the passages of the maze. The
+	 * distance field is computed by one traversal and cached until a wall changes,
+	 * so that solvers run one after another on the same maze share it.
+	 * @param id Id of a cell.
+	 * @return Number of steps from the entrance to cell id, -1 if it cannot be reached.
+	 */
+	public abstract int entranceDistance(int id);
+
+	/**
+	 * @return Number of cells on a shortest path from entrance to exit, counted as the
+	 * path length of validate(), -1 if the exit cannot be reached.
+	 */
+	public int optimalPathLength() {
+		int dist = entranceDistance(id(exit.r, exit.c));
+		return dist < 0 ? -1 : dist + 1;
+	} // end of optimalPathLength()
+
+	/**
+	 * @return Path length of the solution checked by the last validate(), 0 if none.
+	 */
+	public abstract int solutionPathLength();
+
+	/**
+	 * @return Path length of the last solution validated over the optimal path length,
+	 * 1 for a shortest solution, 0 if there is none.
+	 */
+	public double pathRatio() {
+		int optimal = optimalPathLength();
+		return optimal > 0 ? (double) solutionPathLength() / optimal : 0;
+	} // end of pathRatio()
+
+	/**
+	 * @param cellsExplored Number of cells a solver explored, see MazeSolver.cellsExplored().
+	 * @return cellsExplored over the optimal path length, 1 for a solver which explored
+	 * nothing but a shortest path, 0 if the exit cannot be reached.
+	 */
+	public double exploredRatio(int cellsExplored) {
+		int optimal = optimalPathLength();
+		return optimal > 0 ? (double) cellsExplored / optimal : 0;
+	} // end of exploredRatio()
+
 	/**
 	 * Function to draw the maze in a window.
 	 */
@@ -89,10 +263,26 @@ public abstract class Maze {
 	 */
 	public abstract void drawFtPrt(Cell cell);
 
+	/**
+	 * Draw a foot print at a cell given by id, as drawFtPrt(Cell) but without a Cell,
+	 * for solvers working on cell ids.
+	 * @param id Id of the cell to be drawn.
+	 */
+	public abstract void drawFtPrt(int id);
+
 
         /**
          * Show validation result of whether the maze is solved
          */
         public abstract boolean validate();
 
+	/**
+	 * Check a solution given as cell ids, in O(path length) without foot prints: it
+	 * must go from entrance to exit, each step through an open wall or a tunnel.
+	 * solutionPathLength() is then its length.
+	 * @param path Ids of the cells of the solution, from entrance to exit.
+	 * @return True if path is a solution. Otherwise false.
+	 */
+	public abstract boolean validate(int path[]);
+
 }
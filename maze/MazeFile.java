@@ -0,0 +1,365 @@
+package maze;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact binary file format of normal, tunnel and hexagon mazes, so that a generated
+ * maze can be saved and shared between runs instead of generated again.
+ *
+ * Layout of the file, all little-endian:
+ * a header of HEADER_BYTES bytes holding MAGIC, VERSION, type, sizeR, sizeC,
+ * entrance id, exit id, number of tunnels and (as a long) number of wall bits,
+ * then one (id, id) int pair per tunnel,
+ * then the words of the wall store of the maze, see NormalMaze.wallBit() and
+ * HexMaze.wallBit(), i.e. 2 bits per square cell or 3 per hexagon cell plus the
+ * padding row and column(s).
+ *
+ * Cell ids are those of Maze.id(), so (id / sizeC, id % sizeC) is the position of
+ * a cell as given to initMaze().
+ */
+public class MazeFile {
+
+	/**
+	 * "MZBF", first int of a maze file
+	 */
+	public final static int MAGIC = 0x4D5A4246;
+
+	/**
+	 * Version of the file layout
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * Size of the header, in bytes
+	 */
+	protected final static int HEADER_BYTES = 48;
+
+	/**
+	 * Size of the buffer streaming the file, in bytes
+	 */
+	protected final static int BUFFER_BYTES = 1 << 20;
+
+
+	/**
+	 * Save maze to file, replacing it if it exists.
+	 * @param maze Maze to save, a NormalMaze, TunnelMaze or HexMaze.
+	 * @param file File to write.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public static void save(Maze maze, Path file) throws IOException {
+		if (!(maze instanceof NormalMaze))
+			throw new IllegalArgumentException("Cannot save maze of class " + maze.getClass().getSimpleName());
+		WallStore walls = ((NormalMaze) maze).walls;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+			putHeader(buffer, maze, walls, tunnelCount(maze));
+
+			// tunnels
+			int cellNum = maze.cellCount();
+			for (int id = 0; id < cellNum; id++) {
+				int to = maze.tunnel(id);
+				if (to > id) {
+					if (buffer.remaining() < 8)
+						flush(buffer, channel);
+					buffer.putInt(id).putInt(to);
+				}
+			}
+
+			// walls
+			long wordNum = (walls.size() + 63) >>> 6;
+			for (long w = 0; w < wordNum; w++) {
+				if (buffer.remaining() < 8)
+					flush(buffer, channel);
+				buffer.putLong(walls.getWord(w));
+			}
+			flush(buffer, channel);
+		}
+	} // end of save()
+
+
+	/**
+	 * Write maze in memory, as save() would write it to a file, e.g. to hand mazes
+	 * generated in bulk to a feed without going through files.
+	 * @param maze Maze to write, a NormalMaze, TunnelMaze or HexMaze.
+	 * @return The bytes of the maze file.
+	 */
+	public static byte[] toBytes(Maze maze) {
+		if (!(maze instanceof NormalMaze))
+			throw new IllegalArgumentException("Cannot save maze of class " + maze.getClass().getSimpleName());
+		WallStore walls = ((NormalMaze) maze).walls;
+		int tunnelNum = tunnelCount(maze);
+		long wordNum = (walls.size() + 63) >>> 6;
+		long byteNum = HEADER_BYTES + 8L * tunnelNum + 8 * wordNum;
+		if (byteNum > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Maze too large to write in memory");
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) byteNum).order(ByteOrder.LITTLE_ENDIAN);
+		putHeader(buffer, maze, walls, tunnelNum);
+		int cellNum = maze.cellCount();
+		for (int id = 0; id < cellNum; id++) {
+			int to = maze.tunnel(id);
+			if (to > id)
+				buffer.putInt(id).putInt(to);
+		}
+		for (long w = 0; w < wordNum; w++)
+			buffer.putLong(walls.getWord(w));
+		return buffer.array();
+	} // end of toBytes()
+
+
+	/**
+	 * Load a maze saved by save().
+	 * @param file File to read.
+	 * @return The maze, a NormalMaze, TunnelMaze or HexMaze as saved.
+	 * @throws IOException If the file cannot be read or is not a maze file.
+	 */
+	public static Maze load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.flip();
+
+			// header
+			fill(buffer, channel, HEADER_BYTES);
+			if (buffer.getInt() != MAGIC)
+				throw new IOException(file + " is not a maze file");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported maze file version " + version);
+			int type = buffer.getInt();
+			int sizeR = buffer.getInt();
+			int sizeC = buffer.getInt();
+			int entrance = buffer.getInt();
+			int exit = buffer.getInt();
+			int tunnelNum = buffer.getInt();
+			long bitNum = buffer.getLong();
+			buffer.position(HEADER_BYTES);
+
+			NormalMaze maze;
+			switch (type) {
+			case Maze.NORMAL:
+				maze = new NormalMaze();
+				break;
+			case Maze.TUNNEL:
+				maze = new TunnelMaze();
+				break;
+			case Maze.HEX:
+				maze = new HexMaze();
+				break;
+			default:
+				throw new IOException("Unknown maze type " + type);
+			}
+
+			// tunnels
+			List<int[]> tunnelList = new ArrayList<int[]>(tunnelNum);
+			for (int i = 0; i < tunnelNum; i++) {
+				fill(buffer, channel, 8);
+				int from = buffer.getInt();
+				int to = buffer.getInt();
+				int tunnel[] = { from / sizeC, from % sizeC, to / sizeC, to % sizeC };
+				tunnelList.add(tunnel);
+			}
+
+			maze.initMaze(sizeR, sizeC, entrance / sizeC, entrance % sizeC, exit / sizeC, exit % sizeC, tunnelList);
+			if (entrance < 0)
+				maze.entrance = null;
+			if (exit < 0)
+				maze.exit = null;
+			if (maze.walls.size() != bitNum)
+				throw new IOException("Maze file has " + bitNum + " wall bits, expected " + maze.walls.size());
+
+			// walls
+			long wordNum = (bitNum + 63) >>> 6;
+			for (long w = 0; w < wordNum; w++) {
+				fill(buffer, channel, 8);
+				maze.walls.setWord(w, buffer.getLong());
+			}
+			return maze;
+		}
+	} // end of load()
+
+
+	/**
+	 * Open a writer of a normal maze file which takes the maze one row at a time, so
+	 * that a maze streamed by a generator is written with memory for one row only.
+	 * The file is the one save() would write for the same maze.
+	 * @param file File to write, replaced if it exists.
+	 * @param entR Row coordinate of entrance.
+	 * @param entC Column coordinate of entrance.
+	 * @param exitR Row coordinate of exit.
+	 * @param exitC Column coordinate of exit.
+	 * @return The writer, the file is complete once its end() returned.
+	 */
+	public static RowSink writer(Path file, int entR, int entC, int exitR, int exitC) {
+		return new RowWriter(file, entR, entC, exitR, exitC);
+	} // end of writer()
+
+
+	/**
+	 * Writer of the rows of a normal maze, see writer(). Wall bits are laid out as in
+	 * NormalMaze.wallBit(): a padding row of walls, then per row a padding cell and
+	 * the EAST and NORTH bits of every cell, lowest bit first.
+	 */
+	private static class RowWriter implements RowSink {
+
+		/**
+		 * Wall bits of a cell with both walls
+		 */
+		private static final int WALLS = 3;
+
+		private final Path file;
+		private final int entR;
+		private final int entC;
+		private final int exitR;
+		private final int exitC;
+		private FileChannel channel;
+		private ByteBuffer buffer;
+		private long bitNum;
+
+		/**
+		 * Wall bits not written yet, lowest first
+		 */
+		private long word;
+		private int wordBits;
+
+		RowWriter(Path file, int entR, int entC, int exitR, int exitC) {
+			this.file = file;
+			this.entR = entR;
+			this.entC = entC;
+			this.exitR = exitR;
+			this.exitC = exitC;
+		} // end of RowWriter()
+
+		@Override
+		public void begin(int rows, int cols) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			int width = cols + 1;
+			bitNum = 2L * (rows + 1) * width;
+
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(Maze.NORMAL).putInt(rows).putInt(cols);
+			buffer.putInt(entR * cols + entC).putInt(exitR * cols + exitC);
+			buffer.putInt(0).putLong(bitNum);
+			while (buffer.position() < HEADER_BYTES)
+				buffer.put((byte) 0);
+
+			// padding row below the maze, its NORTH walls are the SOUTH walls of row 0
+			for (int p = 0; p < width; p++)
+				putCell(WALLS);
+		} // end of begin()
+
+		@Override
+		public void row(int r, boolean eastOpen[], boolean northOpen[]) throws IOException {
+			// padding cell, its EAST wall is the WEST wall of the row
+			putCell(WALLS);
+			for (int c = 0; c < eastOpen.length; c++)
+				putCell((eastOpen[c] ? 0 : 1) | (northOpen[c] ? 0 : 2));
+		} // end of row()
+
+		@Override
+		public void end() throws IOException {
+			// bits past the last wall are set, as by WallStore.fill()
+			if (wordBits > 0)
+				putWord(word | (-1L << wordBits));
+			flush(buffer, channel);
+			channel.close();
+		} // end of end()
+
+		/**
+		 * @param walls EAST wall bit of a cell, then its NORTH wall bit. As words have an
+		 * even number of bits, the two never are in different words.
+		 */
+		private void putCell(int walls) throws IOException {
+			word |= (long) walls << wordBits;
+			wordBits += 2;
+			if (wordBits == 64) {
+				putWord(word);
+				word = 0;
+				wordBits = 0;
+			}
+		} // end of putCell()
+
+		private void putWord(long w) throws IOException {
+			if (buffer.remaining() < 8)
+				flush(buffer, channel);
+			buffer.putLong(w);
+		} // end of putWord()
+
+	} // end of class RowWriter
+
+
+	/**
+	 * @param maze A maze.
+	 * @return Number of tunnels of maze.
+	 */
+	private static int tunnelCount(Maze maze) {
+		int cellNum = maze.cellCount();
+		int tunnelNum = 0;
+		for (int id = 0; id < cellNum; id++) {
+			if (maze.tunnel(id) > id)
+				tunnelNum++;
+		}
+		return tunnelNum;
+	} // end of tunnelCount()
+
+
+	/**
+	 * Put the header of the file of maze, HEADER_BYTES bytes.
+	 * @param buffer Buffer to put into.
+	 * @param maze Maze being saved.
+	 * @param walls Wall storage of maze.
+	 * @param tunnelNum Number of tunnels of maze.
+	 */
+	private static void putHeader(ByteBuffer buffer, Maze maze, WallStore walls, int tunnelNum) {
+		int start = buffer.position();
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(maze.type).putInt(maze.sizeR).putInt(maze.sizeC);
+		buffer.putInt(maze.entrance == null ? -1 : maze.id(maze.entrance.r, maze.entrance.c));
+		buffer.putInt(maze.exit == null ? -1 : maze.id(maze.exit.r, maze.exit.c));
+		buffer.putInt(tunnelNum).putLong(walls.size());
+		while (buffer.position() < start + HEADER_BYTES)
+			buffer.put((byte) 0);
+	} // end of putHeader()
+
+
+	/**
+	 * Write out what is in buffer and make it empty for putting again.
+	 * @param buffer Buffer being put into.
+	 * @param channel Channel to write to.
+	 * @throws IOException If channel cannot be written.
+	 */
+	private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	} // end of flush()
+
+
+	/**
+	 * Make sure at least n bytes are left in buffer for getting, reading more from channel.
+	 * @param buffer Buffer being got from.
+	 * @param channel Channel to read from.
+	 * @param n Number of bytes needed.
+	 * @throws IOException If channel cannot be read or ends before n bytes.
+	 */
+	private static void fill(ByteBuffer buffer, FileChannel channel, int n) throws IOException {
+		if (buffer.remaining() >= n)
+			return;
+		buffer.compact();
+		while (buffer.position() < n) {
+			if (channel.read(buffer) < 0)
+				throw new IOException("Unexpected end of maze file");
+		}
+		buffer.flip();
+	} // end of fill()
+
+} // end of class MazeFile
@@ -0,0 +1,169 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Breadth first traversal of the passages of a maze, shared by isPerfect() and
+ * validate() of normal, tunnel and hexagon mazes, and by solvers.
+ *
+ * Cells are cell ids, see Maze.id(). The topology of the maze is read through
+ * neighbour(), isOpen() and tunnel() over the directions a cell of the maze can
+ * have a neighbor on, so square, hexagon and tunnel passages are all followed the
+ * same way. The queue is an int ring buffer and distances an int array, both
+ * allocated once for the size of the maze and reused by every traversal.
+ */
+public class MazeTraversal {
+
+	/**
+	 * Distance of a cell not reached by the last traversal
+	 */
+	public final static int UNREACHED = -1;
+
+	/**
+	 * Maze being traversed
+	 */
+	protected final Maze maze;
+
+	/**
+	 * Directions a cell of the maze can have a neighbor on
+	 */
+	protected final int dir[];
+
+	/**
+	 * dist[id] is the number of steps from the start to cell id, UNREACHED if not reached
+	 */
+	protected final int dist[];
+
+	/**
+	 * Ring buffer of cells to expand, from head to tail
+	 */
+	protected final int queue[];
+
+	/**
+	 * Cell the last traversal started from, -1 if none yet
+	 */
+	protected int start = -1;
+
+	/**
+	 * Number of cells reached by the last traversal
+	 */
+	protected int reached = 0;
+
+
+	/**
+	 * @param maze Maze to traverse.
+	 */
+	public MazeTraversal(Maze maze) {
+		this.maze = maze;
+		dir = maze.directions();
+		dist = new int[maze.cellCount()];
+		queue = new int[maze.cellCount()];
+	} // end of MazeTraversal()
+
+
+	/**
+	 * @return Number of cells the traversal was allocated for.
+	 */
+	public int capacity() {
+		return dist.length;
+	} // end of capacity()
+
+
+	/**
+	 * Traverse every passage reachable from cell start.
+	 * @param start Id of the cell to start from.
+	 * @return Number of cells reached, start included.
+	 */
+	public int traverse(int start) {
+		return traverse(start, null);
+	} // end of traverse()
+
+
+	/**
+	 * Traverse the passages reachable from cell start, only entering the cells in allowed.
+	 * @param start Id of the cell to start from.
+	 * @param allowed Bitset of the cells which may be entered, indexed by cell id, null for every cell.
+	 * @return Number of cells reached, start included.
+	 */
+	public int traverse(int start, long allowed[]) {
+		Arrays.fill(dist, UNREACHED);
+		this.start = start;
+		int capacity = queue.length;
+		int head = 0;
+		int tail = 0;
+		int size = 0;
+
+		dist[start] = 0;
+		queue[tail] = start;
+		tail = tail + 1 == capacity ? 0 : tail + 1;
+		size++;
+		reached = 1;
+
+		while (size > 0) {
+			int id = queue[head];
+			head = head + 1 == capacity ? 0 : head + 1;
+			size--;
+			int step = dist[id] + 1;
+
+			for (int k : dir) {
+				int next = maze.neighbour(id, k);
+				if (next < 0 || dist[next] != UNREACHED || !maze.isOpen(id, k))
+					continue;
+				if (allowed != null && (allowed[next >>> 6] & (1L << next)) == 0)
+					continue;
+				dist[next] = step;
+				queue[tail] = next;
+				tail = tail + 1 == capacity ? 0 : tail + 1;
+				size++;
+				reached++;
+			}
+
+			int next = maze.tunnel(id);
+			if (next >= 0 && dist[next] == UNREACHED
+					&& (allowed == null || (allowed[next >>> 6] & (1L << next)) != 0)) {
+				dist[next] = step;
+				queue[tail] = next;
+				tail = tail + 1 == capacity ? 0 : tail + 1;
+				size++;
+				reached++;
+			}
+		}
+
+		return reached;
+	} // end of traverse()
+
+
+	/**
+	 * @return Id of the cell the last traversal started from, -1 if none yet.
+	 */
+	public int start() {
+		return start;
+	} // end of start()
+
+
+	/**
+	 * @return Number of cells reached by the last traversal.
+	 */
+	public int reached() {
+		return reached;
+	} // end of reached()
+
+
+	/**
+	 * @param id Id of a cell.
+	 * @return Number of steps from the start of the last traversal to cell id, UNREACHED if not reached.
+	 */
+	public int distance(int id) {
+		return dist[id];
+	} // end of distance()
+
+
+	/**
+	 * @param id Id of a cell.
+	 * @return True if the last traversal reached cell id. Otherwise false.
+	 */
+	public boolean isReached(int id) {
+		return dist[id] != UNREACHED;
+	} // end of isReached()
+
+} // end of class MazeTraversal
@@ -1,24 +1,78 @@
 package maze;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import maze.StdDraw;
 
 /**
  * Class of a normal rectangular maze.
- * 
+ *
  * @author Youhan Xia
  * @author Jeffrey Chan
- * 
+ *
  */
 public class NormalMaze extends Maze {
 
+	/**
+	 * directions of the four walls of a square cell
+	 */
+	protected final static int squareDir[] = { EAST, NORTH, WEST, SOUTH };
+
+	/**
+	 * directions of the walls a square cell owns in the wall storage, see wallBit()
+	 */
+	protected final static int squareOwnDir[] = { EAST, NORTH };
+
+	/**
+	 * isPerfect() of mazes with at least this many cells runs in parallel, if there
+	 * is more than one thread to run on
+	 */
+	protected final static int PARALLEL_CELLS = 1 << 20;
+
+	/**
+	 * Wall storage. Each cell owns two bits, its EAST and NORTH walls, and the grid
+	 * of owners is padded with one row below and one column on the left, so that
+	 * WEST and SOUTH walls of border cells have an owner too. See wallBit().
+	 */
+	protected WallStore walls;
+
+	/**
+	 * Number of cells in a row of the padded wall grid
+	 */
+	protected int width;
+
+	/**
+	 * Tracker of passages, null unless trackPerfection() is on
+	 */
+	protected PerfectionTracker tracker;
+
+	/**
+	 * Traversal of isPerfect() and validate(), allocated on first use, see traversal()
+	 */
+	protected MazeTraversal traversal;
+
+	/**
+	 * Traversal from the entrance, cached by entranceDistance(), null if not computed
+	 */
+	protected MazeTraversal entranceField;
+
+	/**
+	 * walls.modCount() when entranceField was computed
+	 */
+	protected long entranceFieldMod;
+
+	/**
+	 * Path length of the solution checked by the last validate(), 0 if none
+	 */
+	protected int solutionLength;
+
  	/**
- 	 * Boolean matrix to record visited cells by drawFtPrt(Cell)
+ 	 * Bitset to record visited cells by drawFtPrt(Cell), indexed by cell id
  	 */
- 	protected boolean isRecorded[][];
+ 	protected long isRecorded[];
+
 
-	
 	public NormalMaze() {
 		type = NORMAL;
 	} // end of NormalMaze()
@@ -34,10 +88,10 @@ public class NormalMaze extends Maze {
 		return r >= 0 && r < sizeR && c >= 0 && c < sizeC;
 	} // end of isIn()
 
-	
+
 	/**
 	 * Check whether the cell is in the maze.
-	 * @param cell The cell being checked. 
+	 * @param cell The cell being checked.
 	 * @return True if in the maze. Otherwise false.
 	 */
 	protected boolean isIn(Cell cell) {
@@ -45,24 +99,289 @@ public class NormalMaze extends Maze {
 			return false;
 		return isIn(cell.r, cell.c);
 	} // end of isIn()
-	
-	
+
+
+	@Override
+	public int[] directions() {
+		return squareDir;
+	} // end of directions()
+
+
+	/**
+	 * @return Directions of the walls a cell owns in the wall storage, in order of their bits.
+	 */
+	protected int[] ownDirections() {
+		return squareOwnDir;
+	} // end of ownDirections()
+
+
+	@Override
+	public int cellCount() {
+		return sizeR * sizeC;
+	} // end of cellCount()
+
+
+	@Override
+	public int id(int r, int c) {
+		return r * sizeC + c;
+	} // end of id()
+
+
+	@Override
+	public int row(int id) {
+		return id / sizeC;
+	} // end of row()
+
+
+	@Override
+	public int col(int id) {
+		return id % sizeC;
+	} // end of col()
+
+
+	@Override
+	public int neighbour(int id, int dir) {
+		switch (dir) {
+		case EAST:
+			return (id + 1) % sizeC != 0 ? id + 1 : -1;
+		case NORTH:
+			return id < (sizeR - 1) * sizeC ? id + sizeC : -1;
+		case WEST:
+			return id % sizeC != 0 ? id - 1 : -1;
+		case SOUTH:
+			return id >= sizeC ? id - sizeC : -1;
+		default:
+			return -1;
+		}
+	} // end of neighbour()
+
+
+	@Override
+	public boolean isOpen(int id, int dir) {
+		long bit = wallBit(id, dir);
+		return bit >= 0 && !walls.get(bit);
+	} // end of isOpen()
+
+
+	@Override
+	public void carve(int id, int dir) {
+		long bit = wallBit(id, dir);
+		if (bit < 0)
+			throw new IllegalArgumentException("Cell has no wall on direction " + dir);
+		walls.clear(bit);
+	} // end of carve()
+
+
+	/**
+	 * Index of the bit in walls holding the wall on direction dir of cell id.
+	 * Cell (r, c) sits at p = (r + 1) * width + c + 1 = id + r + width + 1 in the
+	 * padded grid and owns bits 2p (EAST) and 2p + 1 (NORTH), its WEST wall is the
+	 * EAST wall of p - 1 and its SOUTH wall is the NORTH wall of p - width.
+	 * @param id Id of a cell.
+	 * @param dir Direction of the wall
+	 * @return Index of the wall bit, -1 if a square cell has no wall on dir.
+	 */
+	protected long wallBit(int id, int dir) {
+		long p = (long) id + id / sizeC + width + 1;
+		switch (dir) {
+		case EAST:
+			return 2 * p;
+		case NORTH:
+			return 2 * p + 1;
+		case WEST:
+			return 2 * (p - 1);
+		case SOUTH:
+			return 2 * (p - width) + 1;
+		default:
+			return -1;
+		}
+	} // end of wallBit()
+
+
+	/**
+	 * Create the wall storage of the maze, all walls present. A maze initialized
+	 * again with as many wall bits keeps its words, so that generating many mazes of
+	 * one size in the same maze object allocates nothing, see MazeBatch.
+	 * @param size Number of wall bits.
+	 * @return The wall storage.
+	 */
+	protected WallStore newWallStore(long size) {
+		if (walls instanceof BitWallStore && walls.size() == size) {
+			walls.fill();
+			return walls;
+		}
+		return new BitWallStore(size);
+	} // end of newWallStore()
+
+
+	/**
+	 * Set up the wall storage of a maze being initialized, all walls present. If
+	 * perfection is tracked, the new storage is wrapped for the tracker again and the
+	 * tracker starts over with no passage; tunnels are fed to it by the subclasses.
+	 * @param size Number of wall bits.
+	 */
+	protected void initWalls(long size) {
+		if (tracker != null)
+			walls = ((TrackingWallStore) walls).inner();
+		walls = newWallStore(size);
+		map = null;
+		if (tracker != null) {
+			walls = new TrackingWallStore(walls, this);
+			if (tracker.cellCount() == cellCount())
+				tracker.reset();
+			else
+				tracker = new PerfectionTracker(cellCount(), tracker.failFast);
+		}
+	} // end of initWalls()
+
+
+	/**
+	 * Set up isRecorded for the cells of the maze, no cell recorded, keeping the
+	 * bitset of an earlier initMaze() if it has the same size.
+	 */
+	protected void clearRecorded() {
+		int wordNum = (sizeR * sizeC + 63) >>> 6;
+		if (isRecorded != null && isRecorded.length == wordNum)
+			Arrays.fill(isRecorded, 0);
+		else
+			isRecorded = new long[wordNum];
+	} // end of clearRecorded()
+
+
+	/**
+	 * Direction of the opening of an entrance or exit to the outside of the maze,
+	 * i.e. the first direction cell has no neighbor on.
+	 * @param cell Entrance or exit.
+	 * @return Direction of the opening, -1 if cell is not on edge.
+	 */
+	protected int openingDir(Cell cell) {
+		int id = id(cell.r, cell.c);
+		for (int k : directions()) {
+			if (neighbour(id, k) < 0)
+				return k;
+		}
+		return -1;
+	} // end of openingDir()
+
+
 	@Override
 	public boolean isOnEdge(int r, int c) {
-		if (isIn(r, c) && (r == 0 || r == sizeR - 1 || c == 0 || c == sizeC - 1)) 
+		if (isIn(r, c) && (r == 0 || r == sizeR - 1 || c == 0 || c == sizeC - 1))
 			return true;
 		return false;
 	} // end of isOnEdge()
-	
-	
+
+
 	@Override
 	public void initMaze(int rs, int cs, int entR, int entC, int exitR, int exitC, List<int[]> tunnelList) {
 		// set up maze constants
 		sizeR = rs;
 		sizeC = cs;
 		sizeTunnel = tunnelList.size();
-		
-		// set up map matrix
+
+		// set up wall storage, the cell view is built on demand
+		width = sizeC + 1;
+		initWalls(2L * (sizeR + 1) * width);
+		entranceField = null;
+		solutionLength = 0;
+
+		// set up entrance and exit
+		if (isIn(entR, entC))
+			entrance = new Cell(entR, entC);
+		if (isIn(exitR, exitC))
+			exit = new Cell(exitR, exitC);
+
+ 		// set up recording bitset for validation
+ 		clearRecorded();
+	} // end of initMaze()
+
+
+	@Override
+	public void reset() {
+		walls.fill();
+		Arrays.fill(isRecorded, 0);
+		solutionLength = 0;
+	} // end of reset()
+
+
+	@Override
+	public void trackPerfection(boolean failFast) {
+		if (tracker == null) {
+			walls = new TrackingWallStore(walls, this);
+			map = null;
+		}
+		tracker = new PerfectionTracker(cellCount(), failFast);
+		retrack();
+	} // end of trackPerfection()
+
+
+	@Override
+	public void stopTrackingPerfection() {
+		if (tracker != null) {
+			walls = ((TrackingWallStore) walls).inner();
+			tracker = null;
+			map = null;
+		}
+	} // end of stopTrackingPerfection()
+
+
+	@Override
+	public PerfectionTracker perfectionTracker() {
+		return tracker;
+	} // end of perfectionTracker()
+
+
+	/**
+	 * Feed the tracker with every passage of the maze as it is now.
+	 */
+	void retrack() {
+		tracker.reset();
+		int cellNum = sizeR * sizeC;
+		int dir[] = directions();
+		for (int id = 0; id < cellNum; id++) {
+			for (int k : dir) {
+				int next = neighbour(id, k);
+				if (next > id && isOpen(id, k))
+					tracker.carve(id, next);
+			}
+			int next = tunnel(id);
+			if (next > id)
+				tracker.carve(id, next);
+		}
+	} // end of retrack()
+
+
+	/**
+	 * Called by the tracking wall storage when the wall on bit is knocked down or put up.
+	 * Inverse of wallBit(): bit is owned by the cell at p = bit / k of the padded grid,
+	 * k being the number of walls a cell owns. Walls owned by the padding, or on the
+	 * edge of the maze, are no passage and are ignored.
+	 * @param bit Index of the wall bit.
+	 * @param present True if the wall was put up, false if it was knocked down.
+	 */
+	void wallChanged(long bit, boolean present) {
+		int own[] = ownDirections();
+		long p = bit / own.length;
+		long r = p / width - 1;
+		long j = p % width - 1;
+		if (r < 0 || r >= sizeR || j < 0 || j >= sizeC)
+			return;
+		int id = (int) (r * sizeC + j);
+		int next = neighbour(id, own[(int) (bit % own.length)]);
+		if (next < 0)
+			return;
+		if (present)
+			tracker.invalidate();
+		else
+			tracker.carve(id, next);
+	} // end of wallChanged()
+
+
+	@Override
+	public Cell[][] buildCellView() {
+		if (map != null)
+			return map;
+
 		map = new Cell[sizeR][sizeC];
 		for (int i = 0; i < sizeR; i++){
 			for (int j = 0; j < sizeC; j++) {
@@ -71,7 +390,7 @@ public class NormalMaze extends Maze {
 				for (int k = 0; k < 3; k++) {
 					if (k == 1)
 						continue;
-					cell.wall[k] = new Wall();
+					cell.wall[k] = new Wall(walls, wallBit(id(i, j), k));
 				}
 				for (int k = 3; k < NUM_DIR; k++) {
 					if (k == 4)
@@ -83,87 +402,128 @@ public class NormalMaze extends Maze {
 						neigh.neigh[oppoDir[k]] = cell;
 					}
 					else
-						cell.wall[k] = new Wall();
+						cell.wall[k] = new Wall(walls, wallBit(id(i, j), k));
 				}
 			}
 		}
-		
-		// set up entrance and exit
-		if (isIn(entR, entC))
-			entrance = map[entR][entC];
-		if (isIn(exitR, exitC))
-			exit = map[exitR][exitC];
 
- 		// set up recording matrix for validation
- 		isRecorded = new boolean[sizeR][sizeC];
-	} // end of initMaze()
-	
-	
+		// re-point entrance and exit to the view
+		if (entrance != null)
+			entrance = map[entrance.r][entrance.c];
+		if (exit != null)
+			exit = map[exit.r][exit.c];
+
+		return map;
+	} // end of buildCellView()
+
+
+	/**
+	 * @return Traversal of the maze, allocated once for the size of the maze.
+	 */
+	protected MazeTraversal traversal() {
+		if (traversal == null || traversal.capacity() != cellCount())
+			traversal = new MazeTraversal(this);
+		return traversal;
+	} // end of traversal()
+
+
+	@Override
+	public long fingerprint() {
+		long h = mix(type);
+		h = mix(h ^ sizeR);
+		h = mix(h ^ sizeC);
+		int cellNum = sizeR * sizeC;
+		for (int id = 0; id < cellNum; id++) {
+			int to = tunnel(id);
+			if (to > id)
+				h = mix(h ^ ((long) id << 32 | to));
+		}
+
+		long bitNum = walls.size();
+		long wordNum = (bitNum + 63) >>> 6;
+		for (long w = 0; w < wordNum; w++) {
+			long word = walls.getWord(w);
+			// bits past the last wall bit are not walls, and backends leave them differently
+			if (w == wordNum - 1 && (bitNum & 63) != 0)
+				word &= (1L << bitNum) - 1;
+			h = mix(h ^ word);
+		}
+		return h;
+	} // end of fingerprint()
+
+
+	/**
+	 * Finalizer of MurmurHash3, a bijection spreading every bit of h over the result.
+	 * @param h Value to mix.
+	 * @return Mixed value.
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	} // end of mix()
+
+
+	@Override
+	public int entranceDistance(int id) {
+		int start = id(entrance.r, entrance.c);
+		if (entranceField == null || entranceFieldMod != walls.modCount() || entranceField.start() != start) {
+			if (entranceField == null || entranceField.capacity() != cellCount())
+				entranceField = new MazeTraversal(this);
+			entranceField.traverse(start);
+			entranceFieldMod = walls.modCount();
+		}
+		return entranceField.distance(id);
+	} // end of entranceDistance()
+
+
+	@Override
+	public int solutionPathLength() {
+		return solutionLength;
+	} // end of solutionPathLength()
+
+
 	@Override
 	public boolean isPerfect() {
-		boolean visited[][] = new boolean[sizeR][sizeC];
-		Queue<Cell> queue = new LinkedList<Cell>();
-		
-		queue.add(entrance);
-		
-		while (!queue.isEmpty()) {
-			Cell currCell = queue.poll();
-			visited[currCell.r][currCell.c] = true;
-			int visitedNeigh = 0;
-			for (int i = 0; i < NUM_DIR; i++) {
-				Cell nextCell = currCell.neigh[i];
-				if (!isIn(nextCell) || currCell.wall[i].present)
-					continue;
-				if (visited[nextCell.r][nextCell.c])
-					visitedNeigh += 1; 
-				else
-					queue.add(nextCell);
+		if (tracker != null && tracker.isValid())
+			return tracker.isPerfect();
+
+		int cellNum = sizeR * sizeC;
+		int dir[] = directions();
+		if (cellNum >= PARALLEL_CELLS && ForkJoinPool.getCommonPoolParallelism() > 1)
+			return PerfectMazeVerifier.isPerfect(this);
+
+		// a perfect maze is a tree, so it has exactly cellNum - 1 passages,
+		// counted here from both of their ends
+		long passageEnds = 0;
+		for (int id = 0; id < cellNum; id++) {
+			for (int k : dir) {
+				if (neighbour(id, k) >= 0 && isOpen(id, k))
+					passageEnds++;
 			}
-			
-			if (visitedNeigh > 1)
-				return false;
+			if (tunnel(id) >= 0)
+				passageEnds++;
 		}
-		
-		for (int i = 0; i < sizeR; i++)
-			for (int j = 0; j < sizeC; j++)
-				if (!visited[i][j])
-					return false;
-		
-		return true;
+		if (passageEnds != 2L * (cellNum - 1))
+			return false;
+
+		// and with that many passages it is a tree iff every cell can be visited
+		return traversal().traverse(id(entrance.r, entrance.c)) == cellNum;
 	} // end of isPerfect()
 
-	
+
 	@Override
 	public void draw() {
 		// draw nothing if visualization is switched off
 		if (!isVisu)
 			return;
-		
-		for (int i = 0; i < sizeR; i++)
-			for (int j = 0; j < sizeC; j++)
-				for (int k = 0; k < NUM_DIR; k++) {
-					if (map[i][j].wall[k] != null)
-						map[i][j].wall[k].drawn = false;
-				}
-		
-		for (int k = 0; k < NUM_DIR; k++) {
-			if (k == 1 || k == 4)
-				continue;
-			if (entrance.neigh[k] == null) {
-				entrance.wall[k].drawn = true;
-				break;
-			}
-		}
-		
-		for (int k = 0; k < NUM_DIR; k++) {
-			if (k == 1 || k == 4)
-				continue;
-			if (exit.neigh[k] == null) {
-				exit.wall[k].drawn = true;
-				break;
-			}
-		}
-		
+
+		int entranceDir = openingDir(entrance);
+		int exitDir = openingDir(exit);
+
 		StdDraw.setCanvasSize(900, 900);
 		StdDraw.setXscale(-1, sizeC+1);
 		StdDraw.setYscale(-1, sizeR+1);
@@ -178,79 +538,77 @@ public class NormalMaze extends Maze {
 		StdDraw.setPenColor(StdDraw.RED);
 		if (exit != null) {
 			StdDraw.filledCircle(exit.c + 0.5, exit.r + 0.5, 0.375);
-		}        
+		}
 
 
-		// draw walls
+		// draw walls, each cell draws the walls it owns and the border walls on its WEST and SOUTH,
+		// except for the openings of entrance and exit
 		StdDraw.setPenColor(StdDraw.BLACK);
 		for (int r = 0; r < sizeR; r++) {
 			for (int c = 0; c < sizeC; c++) {
-				if (map[r][c].wall[EAST].present && !map[r][c].wall[EAST].drawn) { StdDraw.line(c+1, r, c+1, r+1); map[r][c].wall[EAST].drawn = true; }
-				if (map[r][c].wall[NORTH].present && !map[r][c].wall[NORTH].drawn) { StdDraw.line(c, r+1, c+1, r+1); map[r][c].wall[NORTH].drawn = true; }
-				if (map[r][c].wall[WEST].present && !map[r][c].wall[WEST].drawn) { StdDraw.line(c, r, c, r+1); map[r][c].wall[WEST].drawn = true; }
-				if (map[r][c].wall[SOUTH].present && !map[r][c].wall[SOUTH].drawn) { StdDraw.line(c, r, c+1, r); map[r][c].wall[SOUTH].drawn = true; }
+				int id = id(r, c);
+				int skipDir = -1;
+				if (r == entrance.r && c == entrance.c)
+					skipDir = entranceDir;
+				else if (r == exit.r && c == exit.c)
+					skipDir = exitDir;
+				if (skipDir != EAST && walls.get(wallBit(id, EAST))) StdDraw.line(c+1, r, c+1, r+1);
+				if (skipDir != NORTH && walls.get(wallBit(id, NORTH))) StdDraw.line(c, r+1, c+1, r+1);
+				if (c == 0 && skipDir != WEST && walls.get(wallBit(id, WEST))) StdDraw.line(c, r, c, r+1);
+				if (r == 0 && skipDir != SOUTH && walls.get(wallBit(id, SOUTH))) StdDraw.line(c, r, c+1, r);
 			}
 		}
 	} // end of draw()
 
-	
+
 	@Override
 	public void drawFtPrt(Cell cell) {
+		drawFtPrt(id(cell.r, cell.c));
+	} // end of drawFtPrt()
+
+
+	@Override
+	public void drawFtPrt(int id) {
  		// record every cell drawn
- 		isRecorded[cell.r][cell.c] = true;
+ 		isRecorded[id >>> 6] |= 1L << id;
 
 		// draw nothing if visualization is switched off
 		if (!isVisu)
 			return;
-		
+
 		StdDraw.setPenColor(StdDraw.GRAY);
-		StdDraw.filledCircle(cell.c + 0.5, cell.r + 0.5, 0.25);
+		StdDraw.filledCircle(col(id) + 0.5, row(id) + 0.5, 0.25);
 	} // end of drawFtPrt()
-	
+
 
         @Override
         public boolean validate() {
                 boolean isValid = true;
                 int pathLength = 0;
-                int count = 0;
-
-                int stepCount[][] = new int[sizeR][sizeC];
-                Queue<Cell> queue = new LinkedList<Cell>();
 
-                queue.add(entrance);
-                stepCount[entrance.r][entrance.c] = 1;
+                // only cells drawn by the solver may be walked through
+                MazeTraversal trav = traversal();
+                int count = trav.traverse(id(entrance.r, entrance.c), isRecorded);
 
-                while (!queue.isEmpty()) {
-                        Cell cell = queue.poll();
-                        count++;
-                        int step = stepCount[cell.r][cell.c];
-
-                        for (int i = 0; i < Maze.NUM_DIR; i++) {
-                                Cell next = cell.neigh[i];
-                                if (next != null && !cell.wall[i].present && isRecorded[next.r][next.c] && stepCount[next.r][next.c] == 0) {
-                                        stepCount[next.r][next.c] = step + 1;
-                                        queue.add(next);
-                                }
-                        }
-                }
-
-                if (stepCount[exit.r][exit.c] == 0) {
+                int end = id(exit.r, exit.c);
+                if (!trav.isReached(end)) {
                         isValid = false;
                         System.out.println("[Validation] Exit is not reached.");
                 }
                 else {
-                        pathLength = stepCount[exit.r][exit.c];
+                        pathLength = trav.distance(end) + 1;
                 }
 
-                for (int i = 0; i < sizeR; i++){
-                        for (int j = 0; j < sizeC; j++) {
-                                if (isValid && isRecorded[i][j] && stepCount[i][j] == 0) {
-                                        isValid = false;
-                                        System.out.println("[Validation] Visited cell not reachable.");
-                                }
+                int cellNum = sizeR * sizeC;
+                for (int id = 0; id < cellNum && isValid; id++) {
+                        if ((isRecorded[id >>> 6] & (1L << id)) != 0 && !trav.isReached(id)) {
+                                isValid = false;
+                                System.out.println("[Validation] Visited cell not reachable.");
                         }
                 }
 
+                solutionLength = isValid ? pathLength : 0;
+
                 if (isValid) {
                         System.out.println("[Validation] Number of cells visited = " + count);
                         System.out.println("[Validation] Path length of the solution = " + pathLength);
@@ -259,4 +617,37 @@ public class NormalMaze extends Maze {
                 return isValid;
         } // end of validate()
 
+
+	@Override
+	public boolean validate(int path[]) {
+		solutionLength = 0;
+		int cellNum = sizeR * sizeC;
+		if (path == null || path.length == 0 || path[0] != id(entrance.r, entrance.c)
+				|| path[path.length - 1] != id(exit.r, exit.c)) {
+			System.out.println("[Validation] Path does not go from entrance to exit.");
+			return false;
+		}
+
+		int dir[] = directions();
+		for (int i = 1; i < path.length; i++) {
+			int id = path[i - 1];
+			int next = path[i];
+			if (next < 0 || next >= cellNum) {
+				System.out.println("[Validation] Cell " + next + " is not in the maze.");
+				return false;
+			}
+			boolean isStep = tunnel(id) == next;
+			for (int k = 0; k < dir.length && !isStep; k++)
+				isStep = neighbour(id, dir[k]) == next && isOpen(id, dir[k]);
+			if (!isStep) {
+				System.out.println("[Validation] No passage from cell " + id + " to cell " + next + ".");
+				return false;
+			}
+		}
+
+		solutionLength = path.length;
+		System.out.println("[Validation] Path length of the solution = " + solutionLength);
+		return true;
+	} // end of validate()
+
 } // end of class NormalMaze
@@ -0,0 +1,129 @@
+package maze;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parallel check of whether a maze is perfect, for mazes too large to traverse
+ * on one thread.
+ *
+ * Every passage (open wall between two cells, or tunnel) unions the sets of its two
+ * cells in an AtomicUnionFind over cell ids. Passages are processed in strips of
+ * rows on a ForkJoinPool. The maze is perfect iff no union finds its two cells
+ * already connected, i.e. there is no loop, and there are cellCount() - 1 passages,
+ * i.e. a single set is left.
+ */
+public class PerfectMazeVerifier {
+
+	/**
+	 * Minimum number of cells in a strip of rows processed by one task
+	 */
+	protected final static int STRIP_CELLS = 1 << 16;
+
+	/**
+	 * Maze being checked
+	 */
+	protected final Maze maze;
+
+	/**
+	 * Sets of the cells connected by the passages united so far
+	 */
+	protected final AtomicUnionFind sets;
+
+	/**
+	 * Number of passages united
+	 */
+	protected final AtomicLong passages = new AtomicLong();
+
+	/**
+	 * Set as soon as a passage closes a loop
+	 */
+	protected final AtomicBoolean hasLoop = new AtomicBoolean();
+
+
+	/**
+	 * @param maze Maze to check.
+	 */
+	protected PerfectMazeVerifier(Maze maze) {
+		this.maze = maze;
+		sets = new AtomicUnionFind(maze.cellCount());
+	} // end of PerfectMazeVerifier()
+
+
+	/**
+	 * Check whether maze is a perfect maze, using the common ForkJoinPool.
+	 * @param maze Maze to check.
+	 * @return true if it is perfect maze, i.e. every cell can be visited and there is no loop.
+	 */
+	public static boolean isPerfect(Maze maze) {
+		return isPerfect(maze, ForkJoinPool.commonPool());
+	} // end of isPerfect()
+
+
+	/**
+	 * Check whether maze is a perfect maze.
+	 * @param maze Maze to check.
+	 * @param pool Pool to run the strips on.
+	 * @return true if it is perfect maze, i.e. every cell can be visited and there is no loop.
+	 */
+	public static boolean isPerfect(Maze maze, ForkJoinPool pool) {
+		PerfectMazeVerifier verifier = new PerfectMazeVerifier(maze);
+		int stripRows = Math.max(1, STRIP_CELLS / Math.max(1, maze.sizeC));
+		pool.invoke(verifier.new Strip(0, maze.sizeR, stripRows));
+		return !verifier.hasLoop.get() && verifier.passages.get() == maze.cellCount() - 1;
+	} // end of isPerfect()
+
+
+	/**
+	 * Task uniting the passages of rows [from, to), each from the cell with the smaller id.
+	 */
+	protected class Strip extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int stripRows;
+
+		Strip(int from, int to, int stripRows) {
+			this.from = from;
+			this.to = to;
+			this.stripRows = stripRows;
+		} // end of Strip()
+
+		@Override
+		protected void compute() {
+			if (to - from > stripRows) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Strip(from, mid, stripRows), new Strip(mid, to, stripRows));
+				return;
+			}
+
+			int first = from * maze.sizeC;
+			int last = to * maze.sizeC;
+			int dirs[] = maze.directions();
+			long count = 0;
+			for (int id = first; id < last && !hasLoop.get(); id++) {
+				for (int k : dirs) {
+					int next = maze.neighbour(id, k);
+					if (next > id && maze.isOpen(id, k)) {
+						if (!sets.union(id, next))
+							hasLoop.set(true);
+						count++;
+					}
+				}
+				int next = maze.tunnel(id);
+				if (next > id) {
+					if (!sets.union(id, next))
+						hasLoop.set(true);
+					count++;
+				}
+			}
+			passages.addAndGet(count);
+		} // end of compute()
+
+	} // end of class Strip
+
+} // end of class PerfectMazeVerifier
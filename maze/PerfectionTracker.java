@@ -0,0 +1,164 @@
+package maze;
+
+/**
+ * Incremental UnionFind over the cell ids of a maze, fed with every passage as it
+ * is carved, so that whether the maze is perfect is known at any time from counters.
+ * A passage between two cells which are already connected closes a loop, and is
+ * recorded (or refused, if failFast) the moment it is carved.
+ *
+ * Passages cannot be taken out of a union-find, so putting a wall back up between
+ * two cells invalidates the tracker.
+ */
+public class PerfectionTracker {
+
+	/**
+	 * Sets of the cells connected by the passages carved
+	 */
+	protected final UnionFind sets;
+
+	/**
+	 * Whether carving a loop throws IllegalStateException
+	 */
+	protected final boolean failFast;
+
+	/**
+	 * Number of passages carved
+	 */
+	protected long passages;
+
+	/**
+	 * Number of passages which closed a loop
+	 */
+	protected long loops;
+
+	/**
+	 * Cells on both sides of the first passage which closed a loop, -1 if none
+	 */
+	protected int loopFrom;
+	protected int loopTo;
+
+	/**
+	 * False once a passage was taken out
+	 */
+	protected boolean valid;
+
+
+	/**
+	 * Construct a tracker of a maze of cellNum cells with no passage.
+	 * @param cellNum Number of cells in the maze.
+	 * @param failFast True to throw IllegalStateException from the carve that closes a loop.
+	 */
+	public PerfectionTracker(int cellNum, boolean failFast) {
+		sets = new UnionFind(cellNum);
+		this.failFast = failFast;
+		reset();
+	} // end of PerfectionTracker()
+
+
+	/**
+	 * Forget every passage.
+	 */
+	public void reset() {
+		sets.reset();
+		passages = 0;
+		loops = 0;
+		loopFrom = -1;
+		loopTo = -1;
+		valid = true;
+	} // end of reset()
+
+
+	/**
+	 * Record a passage carved between cells a and b.
+	 * @param a Id of a cell.
+	 * @param b Id of a neighbor of cell a, or of the other end of its tunnel.
+	 * @return False if the passage closes a loop. Otherwise true.
+	 */
+	public boolean carve(int a, int b) {
+		passages++;
+		if (!sets.union(a, b)) {
+			loops++;
+			if (loopFrom < 0) {
+				loopFrom = a;
+				loopTo = b;
+			}
+			if (failFast)
+				throw new IllegalStateException("Passage between cells " + a + " and " + b + " closes a loop");
+			return false;
+		}
+		return true;
+	} // end of carve()
+
+
+	/**
+	 * @return Number of cells of the maze tracked.
+	 */
+	public int cellCount() {
+		return sets.size();
+	} // end of cellCount()
+
+
+	/**
+	 * Record that a passage was taken out, after which the tracker cannot tell any more.
+	 */
+	public void invalidate() {
+		valid = false;
+	} // end of invalidate()
+
+
+	/**
+	 * @return True if no passage was taken out, so the counters describe the maze.
+	 */
+	public boolean isValid() {
+		return valid;
+	} // end of isValid()
+
+
+	/**
+	 * @return Number of passages carved.
+	 */
+	public long passages() {
+		return passages;
+	} // end of passages()
+
+
+	/**
+	 * @return Number of connected sets of cells.
+	 */
+	public long components() {
+		return sets.size() - (passages - loops);
+	} // end of components()
+
+
+	/**
+	 * @return True if a carved passage closed a loop. Otherwise false.
+	 */
+	public boolean hasLoop() {
+		return loops > 0;
+	} // end of hasLoop()
+
+
+	/**
+	 * @return Id of a cell of the first passage which closed a loop, -1 if none.
+	 */
+	public int loopFrom() {
+		return loopFrom;
+	} // end of loopFrom()
+
+
+	/**
+	 * @return Id of the other cell of the first passage which closed a loop, -1 if none.
+	 */
+	public int loopTo() {
+		return loopTo;
+	} // end of loopTo()
+
+
+	/**
+	 * @return true if the passages carved make a perfect maze, i.e. a single set and no loop.
+	 */
+	public boolean isPerfect() {
+		return loops == 0 && passages == sets.size() - 1;
+	} // end of isPerfect()
+
+} // end of class PerfectionTracker
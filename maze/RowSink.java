@@ -0,0 +1,36 @@
+package maze;
+
+import java.io.IOException;
+
+/**
+ * Receiver of a rectangular maze streamed one row at a time, from row 0 (SOUTH) to the
+ * last row (NORTH), e.g. by a generator which never holds the whole maze, see
+ * MazeFile.writer() to write the rows straight to a maze file.
+ */
+public interface RowSink {
+
+	/**
+	 * Called once before the first row.
+	 * @param rows Number of rows of the maze.
+	 * @param cols Number of columns of the maze.
+	 * @throws IOException If the sink cannot be written.
+	 */
+	public void begin(int rows, int cols) throws IOException;
+
+	/**
+	 * Called once per row, in order. The arrays are reused for the next row, a sink
+	 * keeping them must copy them.
+	 * @param r Row, from 0 to rows - 1.
+	 * @param eastOpen eastOpen[c] is true if there is a passage from (r, c) to (r, c + 1).
+	 * @param northOpen northOpen[c] is true if there is a passage from (r, c) to (r + 1, c).
+	 * @throws IOException If the sink cannot be written.
+	 */
+	public void row(int r, boolean eastOpen[], boolean northOpen[]) throws IOException;
+
+	/**
+	 * Called once after the last row.
+	 * @throws IOException If the sink cannot be written.
+	 */
+	public void end() throws IOException;
+
+} // end of interface RowSink
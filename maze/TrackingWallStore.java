@@ -0,0 +1,92 @@
+package maze;
+
+/**
+ * Wall storage wrapping the store of a maze to report every wall knocked down or
+ * put back up to the maze, see NormalMaze.trackPerfection().
+ */
+public class TrackingWallStore implements WallStore {
+
+	/**
+	 * Store holding the walls
+	 */
+	protected final WallStore inner;
+
+	/**
+	 * Maze the walls belong to
+	 */
+	protected final NormalMaze maze;
+
+	/**
+	 * @param inner Store holding the walls.
+	 * @param maze Maze the walls belong to.
+	 */
+	public TrackingWallStore(WallStore inner, NormalMaze maze) {
+		this.inner = inner;
+		this.maze = maze;
+	} // end of TrackingWallStore()
+
+
+	/**
+	 * @return The store holding the walls.
+	 */
+	public WallStore inner() {
+		return inner;
+	} // end of inner()
+
+
+	@Override
+	public boolean get(long bit) {
+		return inner.get(bit);
+	} // end of get()
+
+
+	@Override
+	public void set(long bit) {
+		if (!inner.get(bit)) {
+			inner.set(bit);
+			maze.wallChanged(bit, true);
+		}
+	} // end of set()
+
+
+	@Override
+	public void clear(long bit) {
+		if (inner.get(bit)) {
+			inner.clear(bit);
+			maze.wallChanged(bit, false);
+		}
+	} // end of clear()
+
+
+	@Override
+	public void fill() {
+		inner.fill();
+		maze.retrack();
+	} // end of fill()
+
+
+	@Override
+	public long getWord(long index) {
+		return inner.getWord(index);
+	} // end of getWord()
+
+
+	@Override
+	public void setWord(long index, long word) {
+		inner.setWord(index, word);
+		maze.tracker.invalidate();
+	} // end of setWord()
+
+
+	@Override
+	public long size() {
+		return inner.size();
+	} // end of size()
+
+
+	@Override
+	public long modCount() {
+		return inner.modCount();
+	} // end of modCount()
+
+} // end of class TrackingWallStore
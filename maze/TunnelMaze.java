@@ -4,12 +4,28 @@ import java.util.*;
 
 /**
  * Class of a rectangular maze contains several tunnels each of which connecting a pair of cells.
- * 
+ *
  * @author Jeffrey Chan
  * @author Youhan Xia
  *
  */
 public class TunnelMaze extends NormalMaze {
+
+	/**
+	 * partner[id] is the id of the cell at the other end of the tunnel from cell id, -1 if none
+	 */
+	protected int partner[];
+
+	/**
+	 * Bitset of the cells which are an end of a tunnel, indexed by cell id
+	 */
+	protected long isTunnelEnd[];
+
+	/**
+	 * Ids of both ends of every tunnel, in the order of the tunnel list
+	 */
+	protected int ends[];
+
 	public TunnelMaze() {
 		type = TUNNEL;
 	} // end of TunnelMaze()
@@ -17,87 +33,90 @@ public class TunnelMaze extends NormalMaze {
 	@Override
 	public void initMaze(int rs, int cs, int entR, int entC, int exitR, int exitC, List<int[]> tunnelList) {
 		super.initMaze(rs, cs, entR, entC, exitR, exitC, tunnelList);
+		// keep the arrays of an earlier maze of as many cells
+		if (partner == null || partner.length != sizeR * sizeC) {
+			partner = new int[sizeR * sizeC];
+			isTunnelEnd = new long[(sizeR * sizeC + 63) >>> 6];
+		}
+		else {
+			Arrays.fill(isTunnelEnd, 0);
+		}
+		Arrays.fill(partner, -1);
+		ends = new int[2 * tunnelList.size()];
 		for (int i = 0; i < tunnelList.size(); i++) {
-			map[tunnelList.get(i)[0]][tunnelList.get(i)[1]].tunnelTo = map[tunnelList.get(i)[2]][tunnelList.get(i)[3]];
-			map[tunnelList.get(i)[2]][tunnelList.get(i)[3]].tunnelTo = map[tunnelList.get(i)[0]][tunnelList.get(i)[1]];
+			int from = id(tunnelList.get(i)[0], tunnelList.get(i)[1]);
+			int to = id(tunnelList.get(i)[2], tunnelList.get(i)[3]);
+			ends[2 * i] = from;
+			ends[2 * i + 1] = to;
+			partner[from] = to;
+			partner[to] = from;
+			isTunnelEnd[from >>> 6] |= 1L << from;
+			isTunnelEnd[to >>> 6] |= 1L << to;
+			if (tracker != null)
+				tracker.carve(from, to);
 		}
 	} // end of initMaze()
-	
+
 	@Override
-	public boolean isPerfect() {
-		boolean visited[][] = new boolean[sizeR][sizeC];
-		Queue<Cell> queue = new LinkedList<Cell>();
-		
-		queue.add(entrance);
-		
-		while (!queue.isEmpty()) {
-			Cell cell = queue.poll();
-			Cell next = null;
-			visited[cell.r][cell.c] = true;
-			int visitedNeigh = 0;
-			if (cell.tunnelTo != null) {
-				next = cell.tunnelTo;
-				if (visited[next.r][next.c])
-					visitedNeigh += 1; 
-				else
-					queue.add(next);
-			}
-			for (int i = 0; i < NUM_DIR; i++) {
-				next = cell.neigh[i];
-				if (!isIn(next) || cell.wall[i].present)
-					continue;
-				if (visited[next.r][next.c])
-					visitedNeigh += 1; 
-				else
-					queue.add(next);
+	public int tunnel(int id) {
+		return partner[id];
+	} // end of tunnel()
+
+	@Override
+	public int tunnelEnd(int i) {
+		return ends[i];
+	} // end of tunnelEnd()
+
+	@Override
+	public boolean isTunnel(int id) {
+		return (isTunnelEnd[id >>> 6] & (1L << id)) != 0;
+	} // end of isTunnel()
+
+	@Override
+	public Cell[][] buildCellView() {
+		if (map == null) {
+			super.buildCellView();
+			for (int from = 0; from < partner.length; from++) {
+				int to = partner[from];
+				if (to >= 0)
+					map[row(from)][col(from)].tunnelTo = map[row(to)][col(to)];
 			}
-			
-			if (visitedNeigh > 1)
-				return false;
 		}
-		
-		for (int i = 0; i < sizeR; i++)
-			for (int j = 0; j < sizeC; j++)
-				if (!visited[i][j])
-					return false;
-		
-		return true;
-	} // end of isPerfect()
-	
+		return map;
+	} // end of buildCellView()
+
 	@Override
 	public void draw() {
 		// draw nothing if visualization is switched off
 		if (!isVisu)
 			return;
-		
-		Color[] colors = {Color.CYAN, Color.GREEN, Color.MAGENTA, Color.ORANGE, 
-							Color.PINK, Color.YELLOW, StdDraw.BOOK_BLUE, StdDraw.BOOK_LIGHT_BLUE, 
+
+		Color[] colors = {Color.CYAN, Color.GREEN, Color.MAGENTA, Color.ORANGE,
+							Color.PINK, Color.YELLOW, StdDraw.BOOK_BLUE, StdDraw.BOOK_LIGHT_BLUE,
 							StdDraw.BOOK_RED};
-		
+
 		// draw the maze
 		super.draw();
-		
-		List<Cell> drawnTunnels = new ArrayList<Cell>();
-		
+
 		int numTunnelDrawn = 0;
-		
-		// draw the tunnels
+
+		// draw the tunnels, each from the end with the smaller id
 		for (int r = 0; r < sizeR; r++) {
 			for (int c = 0; c < sizeC; c++) {
-				if (map[r][c].tunnelTo != null && !drawnTunnels.contains(map[r][c])) {
+				int id = id(r, c);
+				if (partner[id] > id) {
 					StdDraw.setPenColor(colors[numTunnelDrawn % colors.length]);
 					StdDraw.setPenRadius(0.005);
 					StdDraw.line(c+0.9, r+0.1, c+0.9, r+0.9);
 					StdDraw.line(c+0.1, r+0.9, c+0.9, r+0.9);
 					StdDraw.line(c+0.1, r+0.1, c+0.1, r+0.9);
 					StdDraw.line(c+0.1, r+0.1, c+0.9, r+0.1);
-					int rr = map[r][c].tunnelTo.r;
-					int cc = map[r][c].tunnelTo.c;
+					int rr = row(partner[id]);
+					int cc = col(partner[id]);
 					StdDraw.line(cc+0.9, rr+0.1, cc+0.9, rr+0.9);
 					StdDraw.line(cc+0.1, rr+0.9, cc+0.9, rr+0.9);
 					StdDraw.line(cc+0.1, rr+0.1, cc+0.1, rr+0.9);
 					StdDraw.line(cc+0.1, rr+0.1, cc+0.9, rr+0.1);
-					drawnTunnels.add(map[r][c].tunnelTo);
 					StdDraw.setPenRadius();
 					numTunnelDrawn++;
 				}
@@ -105,61 +124,4 @@ public class TunnelMaze extends NormalMaze {
 		}
 	} // end of draw()
 
-
-        @Override
-        public boolean validate() {
-                boolean isValid = true;
-                int pathLength = 0;
-                int count = 0;
-
-                int stepCount[][] = new int[sizeR][sizeC];
-                Queue<Cell> queue = new LinkedList<Cell>();
-
-                queue.add(entrance);
-                stepCount[entrance.r][entrance.c] = 1;
-
-                while (!queue.isEmpty()) {
-                        Cell cell = queue.poll();
-                        count++;
-                        int step = stepCount[cell.r][cell.c];
-
-                        if (cell.tunnelTo != null && isRecorded[cell.tunnelTo.r][cell.tunnelTo.c] && stepCount[cell.tunnelTo.r][cell.tunnelTo.c] == 0) {
-                                stepCount[cell.tunnelTo.r][cell.tunnelTo.c] = step + 1;
-                                queue.add(cell.tunnelTo);
-                        }
-
-                        for (int i = 0; i < Maze.NUM_DIR; i++) {
-                                Cell next = cell.neigh[i];
-                                if (next != null && !cell.wall[i].present && isRecorded[next.r][next.c] && stepCount[next.r][next.c] == 0) {
-                                        stepCount[next.r][next.c] = step + 1;
-                                        queue.add(next);
-                                }
-                        }
-                }
-
-                if (stepCount[exit.r][exit.c] == 0) {
-                        isValid = false;
-                        System.out.println("[Validation] Exit is not reached.");
-                }
-                else {
-                        pathLength = stepCount[exit.r][exit.c];
-                }
-
-                for (int i = 0; i < sizeR; i++){
-                        for (int j = 0; j < sizeC; j++) {
-                                if (isValid && isRecorded[i][j] && stepCount[i][j] == 0) {
-                                        isValid = false;
-                                        System.out.println("[Validation] Visited cell not reachable.");
-                                }
-                        }
-                }
-
-                if (isValid) {
-                        System.out.println("[Validation] Number of cells visited = " + count);
-                        System.out.println("[Validation] Path length of the solution = " + pathLength);
-                }
-
-                return isValid;
-        } // end of validate()
-
 } // end of class TunnelMaze
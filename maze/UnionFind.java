@@ -0,0 +1,81 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Union-find over the ints 0 to size() - 1, e.g. cell ids, for callers on a single
+ * thread: the perfection tracker, Eller's generator and the join of the tiles of the
+ * tiled generator. Sets are united by size and find() halves paths, so a run of
+ * operations costs O(alpha(size)) each, amortized. Threads sharing a union-find use
+ * AtomicUnionFind.
+ */
+public class UnionFind {
+
+	/**
+	 * parent[x] is the parent of x, or -(size of its set) if x is a root
+	 */
+	protected final int parent[];
+
+
+	/**
+	 * Construct a union-find in which every element is a set of its own.
+	 * @param size Number of elements.
+	 */
+	public UnionFind(int size) {
+		parent = new int[size];
+		reset();
+	} // end of UnionFind()
+
+
+	/**
+	 * Make every element a set of its own again.
+	 */
+	public void reset() {
+		Arrays.fill(parent, -1);
+	} // end of reset()
+
+
+	/**
+	 * @return Number of elements.
+	 */
+	public int size() {
+		return parent.length;
+	} // end of size()
+
+
+	/**
+	 * @param x An element.
+	 * @return The root of the set of x.
+	 */
+	public int find(int x) {
+		while (parent[x] >= 0) {
+			if (parent[parent[x]] >= 0)
+				parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	} // end of find()
+
+
+	/**
+	 * Union the sets of a and b, linking the root of the smaller set under the other.
+	 * @param a An element.
+	 * @param b An element.
+	 * @return False if a and b were already in the same set. Otherwise true.
+	 */
+	public boolean union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if (a == b)
+			return false;
+		if (parent[a] > parent[b]) {
+			int t = a;
+			a = b;
+			b = t;
+		}
+		parent[a] += parent[b];
+		parent[b] = a;
+		return true;
+	} // end of union()
+
+} // end of class UnionFind
@@ -2,21 +2,51 @@ package maze;
 
 /**
  * Class of wall object used in Cell objects.
- * 
+ *
  * @author Youhan Xia
  * @author Jeffrey Chan
- * 
+ *
  * The solvers require that same wall object are shared by two cell objects next to the wall.
+ * A wall is a view on one bit of the maze's WallStore, so knocking it down through
+ * either cell (or through the store) is seen by both cells.
  */
 public class Wall {
 	/**
-	 * True if the wall is present in the maze. Otherwise false.
+	 * Storage holding the wall bit.
 	 */
-	public boolean present = true;
-	
+	private final WallStore store;
+
+	/**
+	 * Index of the wall bit in store.
+	 */
+	private final long bit;
+
+	/**
+	 * construct the view of wall bit in store
+	 * @param store Storage holding the wall bit
+	 * @param bit Index of the wall bit
+	 */
+	public Wall(WallStore store, long bit) {
+		this.store = store;
+		this.bit = bit;
+	} // end of Wall()
+
+	/**
+	 * @return True if the wall is present in the maze. Otherwise false.
+	 */
+	public boolean isPresent() {
+		return store.get(bit);
+	} // end of isPresent()
+
 	/**
-	 * Used only for visualization functions.
+	 * Put up or knock down the wall.
+	 * @param present True to put up the wall, false to knock it down.
 	 */
-	public boolean drawn = false;
+	public void setPresent(boolean present) {
+		if (present)
+			store.set(bit);
+		else
+			store.clear(bit);
+	} // end of setPresent()
 
 } // end of class Wall
@@ -0,0 +1,59 @@
+package maze;
+
+/**
+ * Interface of the storage backend holding the walls of a maze.
+ *
+ * Every wall of a maze is a single bit, true if the wall is present.
+ * How wall bits are assigned to cells is decided by the maze using the store,
+ * see NormalMaze.wallBit(int, int) and HexMaze.wallBit(int, int).
+ */
+public interface WallStore {
+
+	/**
+	 * @param bit Index of the wall bit.
+	 * @return True if the wall is present. Otherwise false.
+	 */
+	public boolean get(long bit);
+
+	/**
+	 * Put up the wall of index bit.
+	 * @param bit Index of the wall bit.
+	 */
+	public void set(long bit);
+
+	/**
+	 * Knock down the wall of index bit.
+	 * @param bit Index of the wall bit.
+	 */
+	public void clear(long bit);
+
+	/**
+	 * Put up every wall, i.e. restore an all-wall maze.
+	 */
+	public void fill();
+
+	/**
+	 * @param index Index of a word, from 0 to (size() + 63) / 64 - 1.
+	 * @return The 64 wall bits from bit 64 * index, lowest bit first.
+	 */
+	public long getWord(long index);
+
+	/**
+	 * Overwrite 64 walls at once.
+	 * @param index Index of a word, from 0 to (size() + 63) / 64 - 1.
+	 * @param word The 64 wall bits from bit 64 * index, lowest bit first.
+	 */
+	public void setWord(long index, long word);
+
+	/**
+	 * @return Number of wall bits in the store.
+	 */
+	public long size();
+
+	/**
+	 * @return Number of changes made to the walls so far, bumped by every set(), clear(),
+	 * fill() and setWord(), so that anything computed from the walls can tell it is stale.
+	 */
+	public long modCount();
+
+} // end of interface WallStore
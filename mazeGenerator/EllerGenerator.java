@@ -0,0 +1,231 @@
+package mazeGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import maze.Maze;
+import maze.RowSink;
+import maze.UnionFind;
+
+/**
+ * Generate a perfect normal maze with Eller's algorithm, one row at a time.
+ *
+ * Only the current row is kept: the set of every cell, where two cells are in the same
+ * set if the rows generated so far join them. Going along the row, two neighbours of
+ * different sets are joined at random, then every set carves at least one passage
+ * north at random, so that no set is cut off. The last row joins all neighbours of
+ * different sets. As passages only ever join different sets, the maze is perfect.
+ *
+ * Memory depends on the number of columns alone, so with a RowSink such as
+ * MazeFile.writer() a maze of millions of rows streams straight to disk. Run on a Maze,
+ * the rows are carved into it.
+ */
+public class EllerGenerator implements MazeGenerator {
+
+	/**
+	 * Set of every cell of the current row, as a label below 2 * cols
+	 */
+	private int label[];
+
+	/**
+	 * Sets of the labels of the current row
+	 */
+	private UnionFind sets;
+
+	/**
+	 * Number of cells of each set of the current row not gone through yet, by root label
+	 */
+	private int remaining[];
+
+	/**
+	 * Whether each set of the current row carved a passage north, by root label
+	 */
+	private boolean hasNorth[];
+
+	/**
+	 * Whether each label is taken by a cell of the next row
+	 */
+	private boolean isTaken[];
+
+	private boolean eastOpen[];
+	private boolean northOpen[];
+
+	/**
+	 * Random bits not used yet, for the coin flips, and their number
+	 */
+	private long coins;
+	private int coinNum;
+
+
+	/**
+	 * Generate a maze of rows x cols cells reproducibly and stream it to sink.
+	 * @param rows Number of rows.
+	 * @param cols Number of columns.
+	 * @param sink Receiver of the rows.
+	 * @param seed Seed of the random numbers.
+	 * @throws IOException If sink cannot be written.
+	 */
+	public void generate(int rows, int cols, RowSink sink, long seed) throws IOException {
+		generate(rows, cols, sink, new SplitMixRandom(seed));
+	} // end of generate()
+
+
+	/**
+	 * Generate a maze of rows x cols cells and stream it to sink, row 0 first.
+	 * @param rows Number of rows, at least 1.
+	 * @param cols Number of columns, at least 1.
+	 * @param sink Receiver of the rows.
+	 * @param random Source of the random numbers.
+	 * @throws IOException If sink cannot be written.
+	 */
+	public void generate(int rows, int cols, RowSink sink, RandomSource random) throws IOException {
+		if (rows < 1 || cols < 1)
+			throw new IllegalArgumentException("Maze must have at least one row and one column");
+		// at most cols sets are alive, so there always are cols free labels for a new row
+		int labelNum = 2 * cols;
+		label = new int[cols];
+		sets = new UnionFind(labelNum);
+		remaining = new int[labelNum];
+		hasNorth = new boolean[labelNum];
+		isTaken = new boolean[labelNum];
+		eastOpen = new boolean[cols];
+		northOpen = new boolean[cols];
+
+		for (int c = 0; c < cols; c++)
+			label[c] = c;
+		coinNum = 0;
+
+		sink.begin(rows, cols);
+		for (int r = 0; r < rows; r++) {
+			boolean isLast = r == rows - 1;
+			sets.reset();
+
+			// join neighbours of different sets, all of them on the last row
+			int a = sets.find(label[0]);
+			for (int c = 0; c + 1 < cols; c++) {
+				int b = sets.find(label[c + 1]);
+				eastOpen[c] = a != b && (isLast || flip(random));
+				if (eastOpen[c])
+					sets.union(a, b);
+				a = sets.find(b);
+			}
+			eastOpen[cols - 1] = false;
+
+			if (isLast) {
+				Arrays.fill(northOpen, false);
+			}
+			else {
+				carveNorth(cols, random);
+			}
+			sink.row(r, eastOpen, northOpen);
+		}
+		sink.end();
+	} // end of generate()
+
+
+	/**
+	 * Carve at least one passage north from every set of the current row, and label
+	 * the next row: a cell below a passage stays in its set, the others start new sets.
+	 * @param cols Number of columns.
+	 * @param random Source of the random numbers.
+	 */
+	private void carveNorth(int cols, RandomSource random) {
+		for (int c = 0; c < cols; c++) {
+			label[c] = sets.find(label[c]);
+			remaining[label[c]] = 0;
+			hasNorth[label[c]] = false;
+		}
+		for (int c = 0; c < cols; c++)
+			remaining[label[c]]++;
+
+		Arrays.fill(isTaken, false);
+		for (int c = 0; c < cols; c++) {
+			int set = label[c];
+			// the last cell of a set without a passage north yet must carve one
+			northOpen[c] = --remaining[set] == 0 && !hasNorth[set] || flip(random);
+			if (northOpen[c]) {
+				hasNorth[set] = true;
+				isTaken[set] = true;
+			}
+		}
+
+		int free = 0;
+		for (int c = 0; c < cols; c++) {
+			if (!northOpen[c]) {
+				while (isTaken[free])
+					free++;
+				label[c] = free++;
+			}
+		}
+	} // end of carveNorth()
+
+
+	/**
+	 * @param random Source of the random numbers.
+	 * @return A fair coin flip, 64 flips per random number.
+	 */
+	private boolean flip(RandomSource random) {
+		if (coinNum == 0) {
+			coins = random.nextLong();
+			coinNum = 64;
+		}
+		coinNum--;
+		boolean isHead = (coins & 1) != 0;
+		coins >>>= 1;
+		return isHead;
+	} // end of flip()
+
+
+	/**
+	 * Generate maze row by row.
+	 * @param maze A NormalMaze without tunnels, all walls present.
+	 * @param random Source of the random numbers.
+	 */
+	@Override
+	public void generateMaze(Maze maze, RandomSource random) {
+		if (maze.type != Maze.NORMAL)
+			throw new IllegalArgumentException("Eller's algorithm only generates normal mazes");
+		try {
+			generate(maze.sizeR, maze.sizeC, new MazeSink(maze), random);
+		}
+		catch (IOException e) {
+			// carving into a maze writes no file
+			throw new UncheckedIOException(e);
+		}
+	} // end of generateMaze()
+
+
+	/**
+	 * Sink carving the rows into a normal maze.
+	 */
+	private static class MazeSink implements RowSink {
+
+		private final Maze maze;
+
+		MazeSink(Maze maze) {
+			this.maze = maze;
+		} // end of MazeSink()
+
+		@Override
+		public void begin(int rows, int cols) {
+		} // end of begin()
+
+		@Override
+		public void row(int r, boolean eastOpen[], boolean northOpen[]) {
+			for (int c = 0; c < eastOpen.length; c++) {
+				int id = maze.id(r, c);
+				if (eastOpen[c])
+					maze.carve(id, Maze.EAST);
+				if (northOpen[c])
+					maze.carve(id, Maze.NORTH);
+			}
+		} // end of row()
+
+		@Override
+		public void end() {
+		} // end of end()
+
+	} // end of class MazeSink
+
+} // end of class EllerGenerator
@@ -1,122 +1,167 @@
 package mazeGenerator;
 
-import java.util.*;
-
 import maze.Maze;
-import maze.Cell;
-import static maze.Maze.oppoDir;
+import maze.CellSet;
 
 /**
- * Generate a maze using a growing tree generator using a mixture of two different
- * strategies used to select a cell to pick from the travel set. The ratio is specified
- * by the threshold value.
- * 
- * Strategy 1 involves selecting the newest cell added to the travel set.
- * Strategy 2 involves selecting a random cell from the travel set.
- * 
+ * Generate a maze using a growing tree generator using a weighted mixture of strategies
+ * used to select a cell to pick from the travel set. The weights are set by setWeight().
+ *
+ * Strategy NEWEST involves selecting the newest cell added to the travel set.
+ * Strategy OLDEST involves selecting the oldest cell in the travel set.
+ * Strategy RANDOM involves selecting a random cell from the travel set.
+ * Strategy MIDDLE involves selecting the cell in the middle of the travel set.
+ *
+ * Only NEWEST gives the long corridors of the recursive backtracker, only RANDOM the
+ * short branches of Prim's algorithm and only OLDEST long straight runs from the
+ * entrance. Every strategy is O(1), see TravelSet.
+ *
  * @author Huligan
  */
 public class GrowingTreeGenerator implements MazeGenerator {
 	// Growing tree maze generator. As it is very general, here we implement as "usually pick the most recent cell, but occasionally pick a random cell"
-	
-	double threshold = 0.1;
-	
+
+	/**
+	 * Strategies selecting a cell from the travel set
+	 */
+	public enum Selection { NEWEST, OLDEST, RANDOM, MIDDLE }
+
+	/**
+	 * Selection.values(), which makes a new array on every call
+	 */
+	private static final Selection selections[] = Selection.values();
+
+	/**
+	 * Weight of each strategy, indexed by Selection.ordinal()
+	 */
+	double weights[] = new double[selections.length];
+
+	/**
+	 * Visited cells, kept for the next maze if it is small, see CellSet.retain()
+	 */
+	private CellSet visitedCells;
+
+	/**
+	 * Construct a generator picking the newest cell 9 times in 10 and a random one otherwise.
+	 */
+	public GrowingTreeGenerator() {
+		weights[Selection.NEWEST.ordinal()] = 0.9;
+		weights[Selection.RANDOM.ordinal()] = 0.1;
+	} // end of GrowingTreeGenerator()
+
+	/**
+	 * Set how often a strategy is used, relative to the weights of the other ones.
+	 * @param selection Strategy.
+	 * @param weight Weight of the strategy, 0 to never use it.
+	 */
+	public void setWeight(Selection selection, double weight) {
+		if (weight < 0)
+			throw new IllegalArgumentException("Weight must not be negative");
+		weights[selection.ordinal()] = weight;
+	} // end of setWeight()
+
         /**
          * Method to generate the maze using the mixture of strategies for growing tree
-         * @param maze 
+         * @param maze
+         * @param random Source of every random pick
          */
 	@Override
-	public void generateMaze(Maze maze) {
-            // Get the maze entrance
-            Cell currCell = maze.entrance;
-            
+	public void generateMaze(Maze maze, RandomSource random) {
+            int cellNum = maze.cellCount();
+            int dirs[] = maze.directions();
+
+            // cumulative weights, to pick a strategy with one random number
+            double total = 0;
+            double cumulative[] = new double[weights.length];
+            for (int i = 0; i < weights.length; i++) {
+                total += weights[i];
+                cumulative[i] = total;
+            }
+            if (total <= 0)
+                throw new IllegalStateException("No selection strategy has a weight");
+
             /**
-             * Setup the travel cells - which is the set from which the cells to 
-             * travel to next are picked.
-             * 
-             * The travel set is implemented as a stack data type in order to
-             * easily retrieve the last added cell to the data structure in order
-             * to perform strategy 1 cell selection. The nomenclature "travel set"
-             * and "travel stack" are used interchangeably in this implementation.
+             * Setup the travel cells - which is the set from which the cells to
+             * travel to next are picked, by position from oldest to newest.
              */
-            Stack<Cell> travelCells = new Stack<>();
-            HashSet<Cell> visitedCells = new HashSet<>();
-            
-            // Add the entrance to the travel set, and set this as the last added cell
-            Cell lastAddedCell = currCell;
-            travelCells.push(currCell);
-            
+            TravelSet travelCells = new TravelSet(cellNum);
+            visitedCells = CellSet.reuse(visitedCells, cellNum);
+            // directions to the unvisited neighbours of the current cell
+            int neighbourDirs[] = new int[dirs.length];
+
+            // Add the entrance to the travel set
+            int entrance = maze.id(maze.entrance.r, maze.entrance.c);
+            travelCells.add(entrance);
+            visitedCells.add(entrance);
+
             /**
-             * Keep selecting a cell from the travel set using either of the two
-             * strategies until the set is empty
+             * Keep selecting a cell from the travel set using the strategies
+             * until the set is empty
              */
             while(!travelCells.isEmpty()) {
-                // Mark the current cell as visited
-                visitedCells.add(currCell);
-
-                /** 
-                 * Select a cell to travel to from the travel set
-                 * The method of selection takes two forms:
-                 * 1. Select a random cell from the travel set
-                 * 2. Select the last cell added to the travel set
-                 * 
-                 */
-                // 1. Select method #1 based on a probability specified by the threshold value
-                if(new java.util.Random().nextInt((int)(threshold*100.00)) == 0) {
-                    // Select a random cell from the travel set
-                    int nextIndex = new java.util.Random().nextInt(travelCells.size());
-                    currCell = travelCells.get(nextIndex);                 
+                // Select a cell to travel to from the travel set
+                int pos;
+                switch (select(cumulative, total, random)) {
+                case OLDEST:
+                    pos = 0;
+                    break;
+                case RANDOM:
+                    pos = random.nextInt(travelCells.size());
+                    break;
+                case MIDDLE:
+                    pos = travelCells.size() / 2;
+                    break;
+                default:
+                    pos = travelCells.size() - 1;
+                    break;
                 }
-                // 2. In all other cases, Select using method #2 (latest cell)
-                else {
-                    // Pick the last added cell to the travel stack
-                    currCell = travelCells.peek();
-                }
-                
-                // Iterate through all neighbours of the selected cell
-                HashMap<Cell, Integer> neighbours = new HashMap<>();
-                for (int i=0; i<currCell.neigh.length; i++) {
-                    // Check that the neighbour is valid and exists
-                    if(currCell.neigh[i] != null) {
-                        /**
-                         * If the neighbour has not been visited before, add
-                         * it to the list of neighbours.
-                         */                            
-                        if (!visitedCells.contains(currCell.neigh[i])) {
-                            neighbours.put(currCell.neigh[i], i);
-                        }
+                int currCell = travelCells.get(pos);
+
+                // Find the directions to all unvisited neighbours of the selected cell
+                int neighbourNum = 0;
+                for (int k : dirs) {
+                    int neigh = maze.neighbour(currCell, k);
+                    if (neigh >= 0 && !visitedCells.contains(neigh)) {
+                        neighbourDirs[neighbourNum++] = k;
                     }
                 }
 
-                // Select a random neighbour of the cell to travel to   
-                if(!neighbours.isEmpty()) {
-                    // Get all the neighbours of the cell in a random accessible 
-                    // data structure - array list
-                    ArrayList<Cell> neighbourCells = new ArrayList<>();
-                    neighbourCells.addAll(neighbours.keySet());
-                    
-                    // Select a neighbour at random 
-                    Random rand = new Random();
-                    Cell neighbour = neighbourCells.get(rand.nextInt(neighbours.size()));
-                    
-                    // Get direction of selected neighbour
-                    int dir = neighbours.get(neighbour);
+                // Select a random neighbour of the cell to travel to
+                if(neighbourNum > 0) {
+                    int dir = neighbourDirs[random.nextInt(neighbourNum)];
+                    int neigh = maze.neighbour(currCell, dir);
                     // Carve a path to the selected neighbour
-                    currCell.wall[dir].present = false;
-                    currCell.neigh[dir].wall[oppoDir[dir]].present = false;
-                    
+                    maze.carve(currCell, dir);
+
                     // Add the newly selected neighbour to the travel set
-                    travelCells.push(currCell.neigh[dir]);
+                    travelCells.add(neigh);
                     // Mark the newly selected neighbour as visited for future reference
-                    visitedCells.add(currCell.neigh[dir]);
+                    visitedCells.add(neigh);
                 }
                 else {
                     // All neighbours have been visited for this cell
                     // Remove cell from the travel set
-                    travelCells.remove(currCell);
+                    travelCells.removeAt(pos);
                 }
             }
+            visitedCells = CellSet.retain(visitedCells);
+
+	} // end of generateMaze()
 
-	}
+	/**
+	 * Pick a strategy at random, by weight.
+	 * @param cumulative Cumulative weights of the strategies, in order of Selection.
+	 * @param total Sum of the weights.
+	 * @param random Source of the random number.
+	 * @return The strategy.
+	 */
+	private Selection select(double cumulative[], double total, RandomSource random) {
+		double r = random.nextDouble() * total;
+		for (int i = 0; i < selections.length - 1; i++) {
+			if (r < cumulative[i])
+				return selections[i];
+		}
+		return selections[selections.length - 1];
+	} // end of select()
 
 }
@@ -0,0 +1,205 @@
+package mazeGenerator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import maze.Maze;
+import maze.AtomicUnionFind;
+
+/**
+ * Generate a maze with randomized Kruskal's algorithm on all cores of a ForkJoinPool:
+ * go through every wall in random order and knock it down if the cells on its two
+ * sides are not connected yet, as tracked by a lock-free AtomicUnionFind.
+ *
+ * The walls are shuffled in parallel: every wall is hashed into a bucket, the buckets
+ * are filled concurrently, then every bucket is put in order and shuffled on its own,
+ * which gives a uniform random order of all the walls.
+ *
+ * The walls are then taken in batches. Threads first look up both cells of every wall
+ * of a batch concurrently (find() with CAS path halving) and drop the walls whose cells
+ * are connected already, which are most of them once the maze is half done. The walls
+ * left are united in order, serially on the calling thread once the filters are done,
+ * so the compareAndSet of a union is never contended. The maze is exactly the one
+ * sequential Kruskal's would give for the same order of walls, whatever the number
+ * of threads, and a seed gives the same maze every time.
+ *
+ * Each tunnel is a passage already, so its two ends are united before any wall.
+ */
+public class KruskalGenerator implements MazeGenerator {
+
+	/**
+	 * Number of cells whose walls a task hashes into buckets
+	 */
+	protected static final int CHUNK_CELLS = 1 << 14;
+
+	/**
+	 * Number of cells whose walls go into a bucket of the shuffle, on average
+	 */
+	protected static final int BUCKET_CELLS = 1 << 10;
+
+	/**
+	 * Number of walls in a batch, filtered concurrently before the rest are united in order
+	 */
+	protected static final int BATCH_EDGES = 1 << 16;
+
+	/**
+	 * Number of walls of a batch filtered by one task
+	 */
+	protected static final int FILTER_EDGES = 1 << 12;
+
+	/**
+	 * Pool the walls are shuffled and filtered on
+	 */
+	private final ForkJoinPool pool;
+
+	private Maze maze;
+	private int dirs[];
+
+	/**
+	 * Sets of the cells connected by the walls knocked down so far
+	 */
+	private AtomicUnionFind sets;
+
+
+	/**
+	 * Generate on the common ForkJoinPool.
+	 */
+	public KruskalGenerator() {
+		this(ForkJoinPool.commonPool());
+	} // end of KruskalGenerator()
+
+
+	/**
+	 * @param pool Pool the walls are shuffled and filtered on.
+	 */
+	public KruskalGenerator(ForkJoinPool pool) {
+		this.pool = pool;
+	} // end of KruskalGenerator()
+
+
+	/**
+	 * Generate maze by knocking down walls in random order.
+	 * @param maze Maze of any type, all walls present.
+	 * @param random Source of the order of the walls.
+	 */
+	@Override
+	public void generateMaze(Maze maze, RandomSource random) {
+		this.maze = maze;
+		dirs = maze.directions();
+		int cellNum = maze.cellCount();
+		// a wall is coded as id * dirs.length + index of its direction in dirs
+		if ((long) cellNum * dirs.length > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Maze too large for Kruskal's algorithm");
+
+		sets = new AtomicUnionFind(cellNum);
+
+		// the maze is done once every cell is in one set
+		int unions = 0;
+		for (int id = 0; id < cellNum; id++) {
+			int other = maze.tunnel(id);
+			if (other > id && sets.union(id, other))
+				unions++;
+		}
+
+		int edges[] = shuffledEdges(random.nextLong());
+		for (int from = 0; from < edges.length && unions < cellNum - 1; from += BATCH_EDGES) {
+			int first = from;
+			int last = Math.min(from + BATCH_EDGES, edges.length);
+			Range.invoke(pool, 0, (last - first + FILTER_EDGES - 1) / FILTER_EDGES,
+					t -> filter(edges, first + t * FILTER_EDGES, Math.min(first + (t + 1) * FILTER_EDGES, last)));
+
+			for (int i = first; i < last && unions < cellNum - 1; i++) {
+				if (edges[i] < 0)
+					continue;
+				int id = edges[i] / dirs.length;
+				int k = dirs[edges[i] % dirs.length];
+				if (sets.union(id, maze.neighbour(id, k))) {
+					maze.carve(id, k);
+					unions++;
+				}
+			}
+		}
+		sets = null;
+	} // end of generateMaze()
+
+
+	/**
+	 * Make the walls of the maze in uniform random order. Every wall is hashed into one
+	 * of bucketNum buckets, then the buckets are filled concurrently, in no fixed order,
+	 * so every bucket is sorted before it is shuffled with its own seed.
+	 * @param seed Seed of the hash and of the shuffle of every bucket.
+	 * @return Every wall between two cells, coded as id * dirs.length + index in dirs.
+	 */
+	private int[] shuffledEdges(long seed) {
+		int cellNum = maze.cellCount();
+		int chunkNum = (cellNum + CHUNK_CELLS - 1) / CHUNK_CELLS;
+		int bucketNum = Integer.highestOneBit(Math.max(1, cellNum / BUCKET_CELLS));
+
+		AtomicIntegerArray cursor = new AtomicIntegerArray(bucketNum);
+		Range.invoke(pool, 0, chunkNum, c -> hashChunk(c, seed, bucketNum, cursor, null));
+
+		int start[] = new int[bucketNum + 1];
+		for (int b = 0; b < bucketNum; b++) {
+			start[b + 1] = start[b] + cursor.get(b);
+			cursor.set(b, start[b]);
+		}
+
+		int edges[] = new int[start[bucketNum]];
+		Range.invoke(pool, 0, chunkNum, c -> hashChunk(c, seed, bucketNum, cursor, edges));
+		Range.invoke(pool, 0, bucketNum, b -> {
+			Arrays.sort(edges, start[b], start[b + 1]);
+			RandomSource random = new SplitMixRandom(SplitMixRandom.mix(~seed + b * SplitMixRandom.GAMMA));
+			for (int i = start[b + 1] - 1; i > start[b]; i--) {
+				int j = start[b] + random.nextInt(i - start[b] + 1);
+				int e = edges[i];
+				edges[i] = edges[j];
+				edges[j] = e;
+			}
+		});
+		return edges;
+	} // end of shuffledEdges()
+
+
+	/**
+	 * Hash every wall owned by the cells of a chunk into its bucket, each wall owned by
+	 * the cell of smaller id.
+	 * @param c Index of the chunk of CHUNK_CELLS cells.
+	 * @param seed Seed of the hash.
+	 * @param bucketNum Number of buckets, a power of 2.
+	 * @param cursor Next free place of every bucket in edges, or its size if edges is null.
+	 * @param edges The walls, bucket after bucket, or null to count the walls of every bucket.
+	 */
+	private void hashChunk(int c, long seed, int bucketNum, AtomicIntegerArray cursor, int edges[]) {
+		int last = Math.min((c + 1) * CHUNK_CELLS, maze.cellCount());
+		for (int id = c * CHUNK_CELLS; id < last; id++) {
+			for (int i = 0; i < dirs.length; i++) {
+				if (maze.neighbour(id, dirs[i]) <= id)
+					continue;
+				int e = id * dirs.length + i;
+				int b = (int) SplitMixRandom.mix(seed + e * SplitMixRandom.GAMMA) & (bucketNum - 1);
+				int pos = cursor.getAndIncrement(b);
+				if (edges != null)
+					edges[pos] = e;
+			}
+		}
+	} // end of hashChunk()
+
+
+	/**
+	 * Drop the walls of edges[from, to) whose two cells are connected already, by
+	 * setting them to -1. Runs concurrently with other filters, never with a union.
+	 * @param edges The walls.
+	 * @param from First wall to check.
+	 * @param to Index after the last wall to check.
+	 */
+	private void filter(int edges[], int from, int to) {
+		for (int i = from; i < to; i++) {
+			int id = edges[i] / dirs.length;
+			int next = maze.neighbour(id, dirs[edges[i] % dirs.length]);
+			if (sets.find(id) == sets.find(next))
+				edges[i] = -1;
+		}
+	} // end of filter()
+
+} // end of class KruskalGenerator
@@ -0,0 +1,359 @@
+package mazeGenerator;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import maze.HexMaze;
+import maze.Maze;
+import maze.MazeFile;
+import maze.NormalMaze;
+import maze.TunnelMaze;
+
+/**
+ * Service generating mazes in bulk, e.g. many small mazes for a puzzle feed.
+ *
+ * A stream of MazeSpec is generated concurrently by a fixed set of worker threads,
+ * one per core by default, which pull the specs from the stream as they go. Every
+ * worker keeps a workspace for all the jobs it runs, of any batch: one maze object of
+ * each type, whose wall storage is reused from one maze to the next of the same size
+ * (see NormalMaze.newWallStore()), and one generator of each name.
+ *
+ * Results are handed over through a bounded queue: once it is full, workers wait for
+ * the consumer to take results before they pull more specs, so a slow consumer of an
+ * endless stream of specs holds a bounded number of mazes in memory.
+ *
+ * A maze which fails to generate gives a Result with its error. If the stream of specs
+ * itself throws, no more specs are pulled: the consumer gets a Result without a spec
+ * carrying the exception, then the end of the run once the mazes started are done.
+ */
+public class MazeBatch implements AutoCloseable {
+
+	/**
+	 * Default number of results waiting to be taken before workers stop
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	/**
+	 * Generator names, as in MazeTester
+	 */
+	public static final String generatorNames[] = { "recurBack", "modiPrim", "growingTree", "eller", "kruskal" };
+
+	/**
+	 * Marks the end of the results of a run in its queue
+	 */
+	private static final Result END = new Result(null, 0, null, 0, null);
+
+	/**
+	 * Milliseconds a consumer waits for a result before checking whether the batch was closed
+	 */
+	private static final long CLOSE_CHECK_MILLIS = 100;
+
+	private final int threadNum;
+	private final int queueCapacity;
+	private final ExecutorService workers;
+
+	/**
+	 * Set by close(), after which the runs end once their queued results are taken
+	 */
+	private volatile boolean isClosed = false;
+
+	/**
+	 * Workspace of each worker thread, kept across jobs and batches
+	 */
+	private final ThreadLocal<Workspace> workspace = ThreadLocal.withInitial(Workspace::new);
+
+
+	/**
+	 * Generate on one worker per core, with DEFAULT_QUEUE_CAPACITY results queued at most.
+	 */
+	public MazeBatch() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+	} // end of MazeBatch()
+
+
+	/**
+	 * @param threadNum Number of worker threads.
+	 * @param queueCapacity Number of results queued at most before workers wait.
+	 */
+	public MazeBatch(int threadNum, int queueCapacity) {
+		if (threadNum < 1 || queueCapacity < 1)
+			throw new IllegalArgumentException("Need at least one thread and room for one result");
+		this.threadNum = threadNum;
+		this.queueCapacity = queueCapacity;
+		workers = Executors.newFixedThreadPool(threadNum, r -> {
+			Thread thread = new Thread(r, "MazeBatch worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+	} // end of MazeBatch()
+
+
+	/**
+	 * Start generating the mazes of specs. Runs of the same MazeBatch share its workers.
+	 * @param specs Specs of the mazes, pulled by the workers as they go, possibly endless.
+	 * @return The run, to take the results from.
+	 */
+	public Run generate(Stream<MazeSpec> specs) {
+		Run run = new Run(specs.iterator());
+		for (int t = 0; t < threadNum; t++)
+			workers.execute(() -> work(run));
+		return run;
+	} // end of generate()
+
+
+	/**
+	 * Stop the workers, abandoning the runs not finished: their consumers get the
+	 * results queued already, then the end of the run, even if no worker could queue it.
+	 */
+	@Override
+	public void close() {
+		isClosed = true;
+		workers.shutdownNow();
+	} // end of close()
+
+
+	/**
+	 * Make a generator by its name.
+	 * @param name One of generatorNames.
+	 * @return The generator.
+	 */
+	public static MazeGenerator newGenerator(String name) {
+		switch (name) {
+		case "recurBack":
+			return new RecursiveBacktrackerGenerator();
+		case "modiPrim":
+			return new ModifiedPrimsGenerator();
+		case "growingTree":
+			return new GrowingTreeGenerator();
+		case "eller":
+			return new EllerGenerator();
+		case "kruskal":
+			return new KruskalGenerator();
+		default:
+			throw new IllegalArgumentException("Unknown maze generator name " + name);
+		}
+	} // end of newGenerator()
+
+
+	/**
+	 * Loop of a worker: generate specs of run until there are none left, or until the
+	 * specs throw, which is passed on to the consumer as a Result without a spec.
+	 * @param run The run.
+	 */
+	private void work(Run run) {
+		Workspace space = workspace.get();
+		try {
+			while (true) {
+				MazeSpec spec;
+				try {
+					spec = run.next();
+				} catch (RuntimeException e) {
+					run.results.put(new Result(null, 0, null, 0, e));
+					break;
+				}
+				if (spec == null)
+					break;
+				Result result = space.generate(spec);
+				run.produced.incrementAndGet();
+				run.results.put(result);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			run.workerDone();
+		}
+	} // end of work()
+
+
+	/**
+	 * One stream of specs being generated.
+	 */
+	public class Run {
+
+		private final Iterator<MazeSpec> specs;
+		private final BlockingQueue<Result> results = new ArrayBlockingQueue<Result>(queueCapacity);
+		private final AtomicLong produced = new AtomicLong();
+		private final long startNanos = System.nanoTime();
+
+		/**
+		 * Number of workers still running, guarded by this
+		 */
+		private int activeNum = threadNum;
+
+		/**
+		 * System.nanoTime() when the last worker finished, 0 until then
+		 */
+		private volatile long endNanos = 0;
+
+		/**
+		 * True once END was taken
+		 */
+		private boolean isDone = false;
+
+		/**
+		 * True once the specs threw, after which none are pulled, guarded by this
+		 */
+		private boolean isBroken = false;
+
+		Run(Iterator<MazeSpec> specs) {
+			this.specs = specs;
+		} // end of Run()
+
+		/**
+		 * Wait for the next result, in no fixed order.
+		 * @return The result, null once every maze was taken, or once the batch was
+		 * closed and the results queued were taken.
+		 * @throws InterruptedException If interrupted while waiting.
+		 */
+		public Result take() throws InterruptedException {
+			if (isDone)
+				return null;
+			Result result;
+			// a closed batch may never queue END, its workers being interrupted
+			while ((result = results.poll(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+				if (isClosed && results.isEmpty()) {
+					isDone = true;
+					return null;
+				}
+			}
+			if (result == END) {
+				isDone = true;
+				return null;
+			}
+			return result;
+		} // end of take()
+
+		/**
+		 * @return Number of mazes generated so far.
+		 */
+		public long count() {
+			return produced.get();
+		} // end of count()
+
+		/**
+		 * @return Nanoseconds from the start of the run to its end, or to now if it runs still.
+		 */
+		public long elapsedNanos() {
+			long end = endNanos;
+			return (end != 0 ? end : System.nanoTime()) - startNanos;
+		} // end of elapsedNanos()
+
+		/**
+		 * @return Mazes generated per second, over elapsedNanos().
+		 */
+		public double throughput() {
+			return count() * 1e9 / Math.max(1, elapsedNanos());
+		} // end of throughput()
+
+		/**
+		 * @return The next spec, null if there is none left or the specs threw before.
+		 * @throws RuntimeException If the specs throw, once per run.
+		 */
+		private synchronized MazeSpec next() {
+			if (isBroken)
+				return null;
+			try {
+				return specs.hasNext() ? specs.next() : null;
+			} catch (RuntimeException e) {
+				isBroken = true;
+				throw e;
+			}
+		} // end of next()
+
+		/**
+		 * Called by every worker once it is done with the run, the last one ends the results.
+		 */
+		private void workerDone() {
+			synchronized (this) {
+				if (--activeNum > 0)
+					return;
+			}
+			endNanos = System.nanoTime();
+			try {
+				results.put(END);
+			} catch (InterruptedException e) {
+				// closed, nobody takes the results any more
+				Thread.currentThread().interrupt();
+			}
+		} // end of workerDone()
+
+	} // end of class Run
+
+
+	/**
+	 * A generated maze.
+	 */
+	public static class Result {
+
+		/**
+		 * Spec of the maze, null if the specs of the run threw error
+		 */
+		public final MazeSpec spec;
+
+		/**
+		 * Fingerprint of the maze, see Maze.fingerprint()
+		 */
+		public final long fingerprint;
+
+		/**
+		 * The maze, in the format of MazeFile, null if generation failed
+		 */
+		public final byte mazeFile[];
+
+		/**
+		 * Nanoseconds spent generating the maze
+		 */
+		public final long nanos;
+
+		/**
+		 * Why generation failed, null if it did not
+		 */
+		public final RuntimeException error;
+
+		Result(MazeSpec spec, long fingerprint, byte mazeFile[], long nanos, RuntimeException error) {
+			this.spec = spec;
+			this.fingerprint = fingerprint;
+			this.mazeFile = mazeFile;
+			this.nanos = nanos;
+			this.error = error;
+		} // end of Result()
+
+	} // end of class Result
+
+
+	/**
+	 * Mazes and generators of a worker, reused from one job to the next.
+	 */
+	private static class Workspace {
+
+		private final Maze mazes[] = { new NormalMaze(), new TunnelMaze(), new HexMaze() };
+		private final Map<String, MazeGenerator> generators = new HashMap<String, MazeGenerator>();
+
+		/**
+		 * @param spec Spec of a maze.
+		 * @return The maze generated.
+		 */
+		Result generate(MazeSpec spec) {
+			long start = System.nanoTime();
+			try {
+				// indexed by Maze.NORMAL, Maze.TUNNEL and Maze.HEX
+				Maze maze = mazes[spec.type];
+				maze.initMaze(spec.sizeR, spec.sizeC, spec.entR, spec.entC, spec.exitR, spec.exitC, spec.tunnels);
+				generators.computeIfAbsent(spec.generator, MazeBatch::newGenerator).generateMaze(maze, spec.seed);
+				return new Result(spec, maze.fingerprint(), MazeFile.toBytes(maze), System.nanoTime() - start, null);
+			} catch (RuntimeException e) {
+				return new Result(spec, 0, null, System.nanoTime() - start, e);
+			}
+		} // end of generate()
+
+	} // end of class Workspace
+
+} // end of class MazeBatch
@@ -15,5 +15,24 @@ public interface MazeGenerator
 	 * Function that generate a perfect maze from an all-wall initialized maze.
 	 * @param maze The reference of Maze object to generate. 
 	 */
-	public void generateMaze(Maze maze);
-} // end of interface mazeGenerator
\ No newline at end of file
+	public default void generateMaze(Maze maze) {
+		generateMaze(maze, new SplitMixRandom());
+	} // end of generateMaze()
+
+	/**
+	 * Generate a perfect maze reproducibly: the same seed, maze type, size, entrance,
+	 * exit and tunnels give the same walls, see Maze.fingerprint().
+	 * @param maze The reference of Maze object to generate.
+	 * @param seed Seed of the random numbers.
+	 */
+	public default void generateMaze(Maze maze, long seed) {
+		generateMaze(maze, new SplitMixRandom(seed));
+	} // end of generateMaze()
+
+	/**
+	 * Generate a perfect maze, taking every random number from random.
+	 * @param maze The reference of Maze object to generate.
+	 * @param random Source of the random numbers.
+	 */
+	public void generateMaze(Maze maze, RandomSource random);
+} // end of interface mazeGenerator
\ No newline at end of file
@@ -0,0 +1,91 @@
+package mazeGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import maze.Maze;
+
+/**
+ * What to generate for one maze of a batch, see MazeBatch: type, size, entrance, exit,
+ * tunnels, generator and seed, as in a parameter file of MazeTester.
+ */
+public class MazeSpec {
+
+	/**
+	 * Maze.NORMAL, Maze.TUNNEL or Maze.HEX
+	 */
+	public final int type;
+
+	public final int sizeR;
+	public final int sizeC;
+	public final int entR;
+	public final int entC;
+	public final int exitR;
+	public final int exitC;
+
+	/**
+	 * Tunnels as { r1, c1, r2, c2 }, as given to Maze.initMaze()
+	 */
+	public final List<int[]> tunnels;
+
+	/**
+	 * Name of the generator, see MazeBatch.newGenerator()
+	 */
+	public final String generator;
+
+	/**
+	 * Seed of the generator
+	 */
+	public final long seed;
+
+
+	/**
+	 * Spec of a maze without tunnels, from the bottom left cell to the top right one.
+	 * @param type Maze.NORMAL, Maze.TUNNEL or Maze.HEX.
+	 * @param sizeR Number of rows.
+	 * @param sizeC Number of columns.
+	 * @param generator Name of the generator.
+	 * @param seed Seed of the generator.
+	 */
+	public MazeSpec(int type, int sizeR, int sizeC, String generator, long seed) {
+		this(type, sizeR, sizeC, 0, 0, sizeR - 1, sizeC - 1, new ArrayList<int[]>(), generator, seed);
+	} // end of MazeSpec()
+
+
+	/**
+	 * @param type Maze.NORMAL, Maze.TUNNEL or Maze.HEX.
+	 * @param sizeR Number of rows.
+	 * @param sizeC Number of columns.
+	 * @param entR Row coordinate of entrance.
+	 * @param entC Column coordinate of entrance.
+	 * @param exitR Row coordinate of exit.
+	 * @param exitC Column coordinate of exit.
+	 * @param tunnels Tunnels as { r1, c1, r2, c2 }.
+	 * @param generator Name of the generator.
+	 * @param seed Seed of the generator.
+	 */
+	public MazeSpec(int type, int sizeR, int sizeC, int entR, int entC, int exitR, int exitC,
+			List<int[]> tunnels, String generator, long seed) {
+		if (type != Maze.NORMAL && type != Maze.TUNNEL && type != Maze.HEX)
+			throw new IllegalArgumentException("Unknown maze type " + type);
+		this.type = type;
+		this.sizeR = sizeR;
+		this.sizeC = sizeC;
+		this.entR = entR;
+		this.entC = entC;
+		this.exitR = exitR;
+		this.exitC = exitC;
+		this.tunnels = Collections.unmodifiableList(new ArrayList<int[]>(tunnels));
+		this.generator = generator;
+		this.seed = seed;
+	} // end of MazeSpec()
+
+
+	@Override
+	public String toString() {
+		String typeName = type == Maze.HEX ? "hex" : type == Maze.TUNNEL ? "tunnel" : "normal";
+		return typeName + " " + sizeR + "x" + sizeC + " " + generator + " seed " + seed;
+	} // end of toString()
+
+} // end of class MazeSpec
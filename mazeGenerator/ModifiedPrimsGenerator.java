@@ -1,148 +1,177 @@
 package mazeGenerator;
 
 import maze.*;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Random;
-import static maze.Maze.deltaC;
-import static maze.Maze.deltaR;
-import static maze.Maze.oppoDir;
-import static maze.Maze.NUM_DIR;
+import java.util.Arrays;
 
 /**
  * Generate a maze using a modified Prim's algorithm
- * 
+ *
+ * The frontier set is an array of cell ids plus a table of the position of every
+ * cell in it, so that picking a random frontier cell, checking whether a cell is in
+ * the frontier and removing a cell from it are all O(1), and generation is linear
+ * in the size of the maze.
+ *
  * @author s3586372 Rahul Raghavan
  */
 public class ModifiedPrimsGenerator implements MazeGenerator {
 
-        /**
-         * Method to check if cell is within the maze
-         * @param maze
-         * @param r row index
-         * @param c column index
-         * @return 
-         */
-        private boolean isIn(Maze maze, int r, int c) {
-            return r >= 0 && r < maze.sizeR && c >= 0 && c < maze.sizeC;
-        }
+	/**
+	 * Cell ids of the frontier set, from index 0 to frontierSize - 1, in no order
+	 */
+	private int frontier[];
 
-        /**
-         * Method to generate the maze using Prim's
-         * @param maze 
-         * 
-         * Initiate/Setup Maze Generation:
-         * ===============================
-         * 1: Start with empty visited set
-         * 2: Add entrance to visited set
-         * 3: Add neighbours of entrance to frontier set
-         * 
-         * Generate Maze
-         * =============
-         * 4: Pick a cell in the frontier set at random
-         * 5: Pick a neighbour of the frontier set within the visited set
-         * 6: carve a path between the frontier set cell and the visited set cell
-         * 7: repeat 4-6 until the frontier set is empty
-         * 
-         */
+	/**
+	 * frontierPos[id] is the index of cell id in frontier, -1 if it is not in the frontier set
+	 */
+	private int frontierPos[];
+
+	/**
+	 * Number of cells in the frontier set
+	 */
+	private int frontierSize;
+
+	/**
+	 * Visited set, kept for the next maze if it is small, see CellSet.retain(), and
+	 * the frontier arrays with it
+	 */
+	private CellSet visited;
+
+	/**
+	 * Method to add a cell to the frontier set, if it is not in it yet
+	 * @param id id of the cell
+	 */
+	private void addFrontier(int id) {
+		if (frontierPos[id] < 0) {
+			frontierPos[id] = frontierSize;
+			frontier[frontierSize++] = id;
+		}
+	}
+
+	/**
+	 * Method to remove a cell from the frontier set, moving the last cell
+	 * of the frontier array into its place
+	 * @param id id of the cell, which is in the frontier set
+	 */
+	private void removeFrontier(int id) {
+		int pos = frontierPos[id];
+		int last = frontier[--frontierSize];
+		frontier[pos] = last;
+		frontierPos[last] = pos;
+		frontierPos[id] = -1;
+	}
+
+	/**
+	 * Method to generate the maze using Prim's
+	 * @param maze
+	 * @param random Source of every random pick
+	 *
+	 * Initiate/Setup Maze Generation:
+	 * ===============================
+	 * 1: Start with empty visited set
+	 * 2: Add entrance to visited set
+	 * 3: Add neighbours of entrance to frontier set
+	 *
+	 * Generate Maze
+	 * =============
+	 * 4: Pick a cell in the frontier set at random
+	 * 5: Pick a neighbour of the frontier set within the visited set
+	 * 6: carve a path between the frontier set cell and the visited set cell
+	 * 7: repeat 4-6 until the frontier set is empty
+	 *
+	 */
 	@Override
-	public void generateMaze(Maze maze) {
-                /**
-                 * Initiation Steps:
-                 * - Setup frontier set and visited set to compute Prim's
-                 * algorithm.
-                 * - Compute the algorithm for the first Cell - the entrance
-                 */
-		// Create visited set
-		HashSet<Cell> visited = new HashSet<>();
-		// Create frontier set
-		HashSet<Cell> frontier = new HashSet<>();
-                // Create duplicate frontier set for random access
-                LinkedList<Cell> frontierList = new LinkedList<>();
-                
-                // Add entrance to visited set
-		Cell entrance = maze.entrance;
+	public void generateMaze(Maze maze, RandomSource random) {
+		/**
+		 * Initiation Steps:
+		 * - Setup frontier set and visited set to compute Prim's
+		 * algorithm.
+		 * - Compute the algorithm for the first Cell - the entrance
+		 */
+		int cellNum = maze.cellCount();
+		int dirs[] = maze.directions();
+		// Create visited set, or clear the one of the last maze
+		visited = CellSet.reuse(visited, cellNum);
+		// Create frontier set, or empty the one of the last maze of as many cells
+		if (frontier == null || frontier.length != cellNum) {
+			frontier = new int[cellNum];
+			frontierPos = new int[cellNum];
+		}
+		Arrays.fill(frontierPos, -1);
+		frontierSize = 0;
+
+		// Add entrance to visited set
+		int entrance = maze.id(maze.entrance.r, maze.entrance.c);
 		visited.add(entrance);
-                
-                // Carve a path from outside the maze to the entrance
-                for (int i=0; i<NUM_DIR; i++) {
-                    if (!isIn(maze, entrance.r + deltaR[i], entrance.c + deltaC[i]) && entrance.wall[i] != null && entrance.wall[i].present) {
-                        entrance.wall[i].present = false;
-                    }
-                }
-                
-                // Add neighbours of entrance to frontier set
-                for(Cell cell : entrance.neigh) {
-                    // If cell is within the maze
-                    if (cell != null) {                     
-                        if (isIn(maze, cell.r, cell.c)) {
-                            if(!frontier.contains(cell)) {
-                                frontier.add(cell);
-                                frontierList.add(cell);                                
-                            }
-                        }
-                    }
-                }
 
-                /**
-                 * Maze Generation Steps:
-                 * - Run Prim's algorithm for all cells, while carving a path from
-                 * the current cell to the next (by removing the wall between
-                 * the cells)
-                 */
-                while(!frontier.isEmpty()) {
-                    // Select a random cell from frontier set
-                    Random rand = new Random();
-                    Cell next = frontierList.get(rand.nextInt(frontier.size()));
-                    
-                    // Add neighbours of selected cell to frontier set
-                    boolean carved = false;
-                    // Iterate through all neighbours of the selected cell
-                    for (int i=0; i<next.neigh.length; i++) {
-                        // Check that the neighbour is valid and exists
-                        if(next.neigh[i] != null) {
-                            /**
-                             * If the neighbour has not been visited before, add
-                             * it to the frontier set
-                             */                            
-                            if (!visited.contains(next.neigh[i])) {
-                                // Check that the neighbour is not already in the frontier set
-                                if(!frontier.contains(next.neigh[i])) {
-                                    // Add the neighbour to the frontier set
-                                    frontier.add(next.neigh[i]);
-                                    frontierList.add(next.neigh[i]);                                    
-                                }
-                            }
-                            /**
-                             * If the neighbour has been visited, carve a path 
-                             * to it
-                             **/
-                            else {
-                                /**
-                                 * Check if we have already carved a path from this cell
-                                 * - There should only be one oath out of a cell
-                                 * in order for the maze to be perfect.
-                                 */
-                                if (!carved) {
-                                    next.wall[i].present = false;
-                                    next.neigh[i].wall[oppoDir[i]].present = false;
-                                    carved = true;                               
-                                }
-                            }
-                        }
-                    }
-                    /**
-                     * If a path was successfully carved from the randomly 
-                     * selected cell to one of its neighbours - remove it from 
-                     * the frontier set and add it to the visited set.
-                     */
-                    if (carved) {
-                        frontier.remove(next);
-                        frontierList.remove(next);
-                        visited.add(next);
-                    }
-                }
+		// Carve a path from outside the maze to the entrance
+		for (int k : dirs) {
+			if (maze.neighbour(entrance, k) < 0) {
+				maze.carve(entrance, k);
+			}
+		}
+
+		// Add neighbours of entrance to frontier set
+		for (int k : dirs) {
+			int neigh = maze.neighbour(entrance, k);
+			// If cell is within the maze
+			if (neigh >= 0) {
+				addFrontier(neigh);
+			}
+		}
+
+		/**
+		 * Maze Generation Steps:
+		 * - Run Prim's algorithm for all cells, while carving a path from
+		 * the current cell to the next (by removing the wall between
+		 * the cells)
+		 */
+		while (frontierSize > 0) {
+			// Select a random cell from frontier set
+			int next = frontier[random.nextInt(frontierSize)];
+
+			// Add neighbours of selected cell to frontier set
+			boolean carved = false;
+			// Iterate through all neighbours of the selected cell
+			for (int k : dirs) {
+				int neigh = maze.neighbour(next, k);
+				// Check that the neighbour is valid and exists
+				if (neigh < 0) {
+					continue;
+				}
+				/**
+				 * If the neighbour has not been visited before, add
+				 * it to the frontier set (if it is not in it already)
+				 */
+				if (!visited.contains(neigh)) {
+					addFrontier(neigh);
+				}
+				/**
+				 * If the neighbour has been visited, carve a path
+				 * to it
+				 * - There should only be one path out of a cell
+				 * in order for the maze to be perfect.
+				 **/
+				else if (!carved) {
+					maze.carve(next, k);
+					carved = true;
+				}
+			}
+			/**
+			 * If a path was successfully carved from the randomly
+			 * selected cell to one of its neighbours - remove it from
+			 * the frontier set and add it to the visited set.
+			 */
+			if (carved) {
+				removeFrontier(next);
+				visited.add(next);
+			}
+		}
+		// the frontier arrays go with a visited set too large to keep
+		visited = CellSet.retain(visited);
+		if (visited == null) {
+			frontier = null;
+			frontierPos = null;
+		}
 	} // end of generateMaze()
 
 } // end of class ModifiedPrimsGenerator
@@ -0,0 +1,223 @@
+package mazeGenerator;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import maze.HexMaze;
+import maze.Maze;
+import maze.NormalMaze;
+import maze.UnionFind;
+
+/**
+ * Generate a large normal or hexagon maze on all cores of a ForkJoinPool.
+ *
+ * The grid is split into tiles of tileSize x tileSize cells. Each tile is generated as a
+ * perfect maze of its own by any generator, all tiles concurrently, then copied into the
+ * maze. Finally the tiles are joined by carving exactly one door across the edge between
+ * two tiles for every edge of a random spanning tree of the grid of tiles, so the maze is
+ * a tree of trees, i.e. perfect.
+ *
+ * Tiles are cut in the offset columns of the cell ids (see Maze.id()), and tiles start on
+ * even rows, so the hexagon neighbours of a cell of a tile are the same as in the maze.
+ * Walls of cells next to each other share words of the wall storage, so tiles are copied
+ * one band of tiles per task, first the even bands and then the odd ones, so that no two
+ * tasks write the same word at once.
+ *
+ * Mazes with tunnels cannot be tiled, as a tunnel between two tiles would close a loop.
+ */
+public class ParallelTileGenerator implements MazeGenerator {
+
+	/**
+	 * Default number of rows and columns of a tile
+	 */
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * Generator of every tile, one per tile as generators are not thread safe
+	 */
+	private final Supplier<MazeGenerator> tileGenerator;
+
+	/**
+	 * Number of rows and columns of a tile
+	 */
+	private final int tileSize;
+
+	/**
+	 * Pool the tiles are generated on
+	 */
+	private final ForkJoinPool pool;
+
+	private Maze maze;
+	private int tileRows;
+	private int tileCols;
+	private int tileRowNum;
+	private int tileColNum;
+
+	/**
+	 * Generate with tiles of DEFAULT_TILE_SIZE on the common ForkJoinPool.
+	 * @param tileGenerator Makes the generator of a tile, e.g. RecursiveBacktrackerGenerator::new.
+	 */
+	public ParallelTileGenerator(Supplier<MazeGenerator> tileGenerator) {
+		this(tileGenerator, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+	} // end of ParallelTileGenerator()
+
+	/**
+	 * @param tileGenerator Makes the generator of a tile, e.g. RecursiveBacktrackerGenerator::new.
+	 * @param tileSize Number of rows and columns of a tile, at least 2, rounded up to even.
+	 * @param pool Pool the tiles are generated on.
+	 */
+	public ParallelTileGenerator(Supplier<MazeGenerator> tileGenerator, int tileSize, ForkJoinPool pool) {
+		if (tileSize < 2)
+			throw new IllegalArgumentException("Tile size must be at least 2");
+		this.tileGenerator = tileGenerator;
+		this.tileSize = (tileSize + 1) & ~1;
+		this.pool = pool;
+	} // end of ParallelTileGenerator()
+
+	/**
+	 * Generate maze tile by tile.
+	 * @param maze A NormalMaze or HexMaze without tunnels, all walls present.
+	 * @param random Source of the seeds of the tiles and of the doors between them.
+	 */
+	@Override
+	public void generateMaze(Maze maze, RandomSource random) {
+		if (maze.sizeTunnel > 0)
+			throw new IllegalArgumentException("Cannot tile a maze with tunnels");
+		this.maze = maze;
+		tileRows = Math.min(tileSize, maze.sizeR + (maze.sizeR & 1));
+		tileCols = Math.min(tileSize, maze.sizeC);
+		tileRowNum = (maze.sizeR + tileRows - 1) / tileRows;
+		tileColNum = (maze.sizeC + tileCols - 1) / tileCols;
+		int tileNum = tileRowNum * tileColNum;
+
+		// seeds drawn up front, so the maze does not depend on the order tiles run in
+		long seeds[] = new long[tileNum];
+		for (int t = 0; t < tileNum; t++)
+			seeds[t] = random.nextLong();
+
+		// generate every tile, and copy the tiles band by band, even bands then odd ones
+		Maze tiles[] = new Maze[tileNum];
+		pool.invoke(new Range(0, tileNum, t -> tiles[t] = generateTile(t, seeds[t])));
+		// a tracker of perfection is not thread safe, neither are bands too thin to keep
+		// the even ones a word apart
+		if (maze.perfectionTracker() != null || (long) tileRows * maze.sizeC < 64) {
+			for (int t = 0; t < tileNum; t++)
+				copyTile(t, tiles[t]);
+		}
+		else {
+			for (int parity = 0; parity < 2; parity++) {
+				int first = parity;
+				pool.invoke(new Range(0, (tileRowNum - parity + 1) / 2, b -> {
+					int a = first + 2 * b;
+					for (int t = a * tileColNum; t < (a + 1) * tileColNum; t++) {
+						copyTile(t, tiles[t]);
+						tiles[t] = null;
+					}
+				}));
+			}
+		}
+
+		joinTiles(random);
+	} // end of generateMaze()
+
+	/**
+	 * Generate tile t as a maze of its own.
+	 * @param t Index of the tile, row by row.
+	 * @param seed Seed of the tile.
+	 * @return The tile.
+	 */
+	private Maze generateTile(int t, long seed) {
+		int rows = Math.min(tileRows, maze.sizeR - t / tileColNum * tileRows);
+		int cols = Math.min(tileCols, maze.sizeC - t % tileColNum * tileCols);
+		Maze tile = maze.type == Maze.HEX ? new HexMaze() : new NormalMaze();
+		tile.initMaze(rows, cols, 0, 0, rows - 1, cols - 1, new ArrayList<int[]>());
+		tileGenerator.get().generateMaze(tile, seed);
+		return tile;
+	} // end of generateTile()
+
+	/**
+	 * Carve the passages of tile t into the maze.
+	 * @param t Index of the tile, row by row.
+	 * @param tile The tile.
+	 */
+	private void copyTile(int t, Maze tile) {
+		int r0 = t / tileColNum * tileRows;
+		int j0 = t % tileColNum * tileCols;
+		int dirs[] = tile.directions();
+		int cellNum = tile.cellCount();
+		for (int id = 0; id < cellNum; id++) {
+			// cell ids hold row r at r * sizeC to (r + 1) * sizeC - 1, for both maze types
+			int global = (r0 + id / tile.sizeC) * maze.sizeC + j0 + id % tile.sizeC;
+			for (int k : dirs) {
+				// every passage once, from its cell of smaller id
+				if (tile.neighbour(id, k) > id && tile.isOpen(id, k))
+					maze.carve(global, k);
+			}
+		}
+	} // end of copyTile()
+
+	/**
+	 * Join the tiles along a random spanning tree of the grid of tiles, picked by
+	 * Kruskal's algorithm over the tile edges in random order.
+	 * @param random Source of the order of the edges and of the places of the doors.
+	 */
+	private void joinTiles(RandomSource random) {
+		int tileNum = tileRowNum * tileColNum;
+		// edge 2t joins tile t with the tile on its east, edge 2t + 1 with the one on its north
+		int edges[] = new int[2 * tileNum];
+		int edgeNum = 0;
+		for (int t = 0; t < tileNum; t++) {
+			if (t % tileColNum + 1 < tileColNum)
+				edges[edgeNum++] = 2 * t;
+			if (t / tileColNum + 1 < tileRowNum)
+				edges[edgeNum++] = 2 * t + 1;
+		}
+		for (int i = edgeNum - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int e = edges[i];
+			edges[i] = edges[j];
+			edges[j] = e;
+		}
+
+		UnionFind sets = new UnionFind(tileNum);
+		for (int i = 0; i < edgeNum; i++) {
+			int t = edges[i] / 2;
+			boolean isNorth = (edges[i] & 1) != 0;
+			int other = isNorth ? t + tileColNum : t + 1;
+			if (!sets.union(t, other))
+				continue;
+			carveDoor(t, isNorth, random);
+		}
+	} // end of joinTiles()
+
+	/**
+	 * Carve one door at a random place of the edge between tile t and the tile on its
+	 * east or north.
+	 * @param t Index of a tile.
+	 * @param isNorth True for the tile on the north of t, false for the one on its east.
+	 * @param random Source of the place of the door.
+	 */
+	private void carveDoor(int t, boolean isNorth, RandomSource random) {
+		int r0 = t / tileColNum * tileRows;
+		int j0 = t % tileColNum * tileCols;
+		int r1 = Math.min(r0 + tileRows, maze.sizeR);
+		int j1 = Math.min(j0 + tileCols, maze.sizeC);
+		if (!isNorth) {
+			int r = r0 + random.nextInt(r1 - r0);
+			maze.carve(r * maze.sizeC + j1 - 1, Maze.EAST);
+			return;
+		}
+
+		// the northern neighbour in the same offset column always is in the tile on the north
+		int id = (r1 - 1) * maze.sizeC + j0 + random.nextInt(j1 - j0);
+		for (int k : maze.directions()) {
+			int next = maze.neighbour(id, k);
+			if (next >= 0 && next / maze.sizeC == r1 && next % maze.sizeC >= j0 && next % maze.sizeC < j1) {
+				maze.carve(id, k);
+				return;
+			}
+		}
+	} // end of carveDoor()
+
+} // end of class ParallelTileGenerator
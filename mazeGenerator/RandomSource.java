@@ -0,0 +1,26 @@
+package mazeGenerator;
+
+/**
+ * Source of random numbers of a maze generator, so that a generator can be seeded to
+ * reproduce a maze, and the algorithm behind it swapped without touching the generator.
+ *
+ * @see SplitMixRandom
+ */
+public interface RandomSource
+{
+	/**
+	 * @param bound Upper bound, must be positive.
+	 * @return A uniformly distributed int from 0 (inclusive) to bound (exclusive).
+	 */
+	public int nextInt(int bound);
+
+	/**
+	 * @return A uniformly distributed double from 0 (inclusive) to 1 (exclusive).
+	 */
+	public double nextDouble();
+
+	/**
+	 * @return A uniformly distributed long.
+	 */
+	public long nextLong();
+} // end of interface RandomSource
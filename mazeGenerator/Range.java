@@ -0,0 +1,55 @@
+package mazeGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Task running action on every index of [from, to), split in halves down to single indexes.
+ */
+class Range extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int from;
+	private final int to;
+	private final IntConsumer action;
+
+	/**
+	 * @param from First index.
+	 * @param to Index after the last one.
+	 * @param action Action run on every index, possibly on several threads at once.
+	 */
+	Range(int from, int to, IntConsumer action) {
+		this.from = from;
+		this.to = to;
+		this.action = action;
+	} // end of Range()
+
+	/**
+	 * Run action on every index of [from, to) on pool, or right away on this thread if
+	 * there is a single index, which saves handing a small maze over to the pool.
+	 * @param pool Pool to run on.
+	 * @param from First index.
+	 * @param to Index after the last one.
+	 * @param action Action run on every index.
+	 */
+	static void invoke(ForkJoinPool pool, int from, int to, IntConsumer action) {
+		if (to - from == 1)
+			action.accept(from);
+		else if (to > from)
+			pool.invoke(new Range(from, to, action));
+	} // end of invoke()
+
+	@Override
+	protected void compute() {
+		if (to - from > 1) {
+			int mid = (from + to) >>> 1;
+			invokeAll(new Range(from, mid, action), new Range(mid, to, action));
+		}
+		else if (to > from) {
+			action.accept(from);
+		}
+	} // end of compute()
+
+} // end of class Range
@@ -0,0 +1,84 @@
+package mazeGenerator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SplitMix64 random source. It is a few multiplies and shifts per number with no
+ * synchronization, and its output for a seed is fixed by this class rather than by
+ * the JDK, so a seeded maze comes out the same on every Java release.
+ */
+public class SplitMixRandom implements RandomSource {
+
+	/**
+	 * Increment of the state, the odd integer closest to 2^64 / golden ratio
+	 */
+	static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Seeds handed out to unseeded sources, so that two created at once still differ
+	 */
+	private static final AtomicLong seeder = new AtomicLong(System.nanoTime());
+
+	/**
+	 * Current state, advanced by GAMMA for every number
+	 */
+	private long state;
+
+
+	/**
+	 * Construct an unseeded source, different from any other one.
+	 */
+	public SplitMixRandom() {
+		this(seeder.getAndAdd(GAMMA) ^ System.nanoTime());
+	} // end of SplitMixRandom()
+
+
+	/**
+	 * Construct a seeded source, giving the same numbers for the same seed.
+	 * @param seed Seed.
+	 */
+	public SplitMixRandom(long seed) {
+		state = seed;
+	} // end of SplitMixRandom()
+
+
+	@Override
+	public long nextLong() {
+		return mix(state += GAMMA);
+	} // end of nextLong()
+
+
+	/**
+	 * Output function of SplitMix64, which also hashes a long to well mixed bits.
+	 * @param z State, or any long to hash.
+	 * @return Mixed bits of z.
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	} // end of mix()
+
+
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+		// multiply 32 random bits by bound and keep the high half, rejecting the
+		// few low halves which would make some results more likely than others
+		long m = (nextLong() >>> 32) * bound;
+		if ((m & 0xFFFFFFFFL) < bound) {
+			long threshold = (1L << 32) % bound;
+			while ((m & 0xFFFFFFFFL) < threshold)
+				m = (nextLong() >>> 32) * bound;
+		}
+		return (int) (m >>> 32);
+	} // end of nextInt()
+
+
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	} // end of nextDouble()
+
+} // end of class SplitMixRandom
@@ -0,0 +1,100 @@
+package mazeGenerator;
+
+/**
+ * Travel set of the growing tree generator: the cells the tree can still grow from,
+ * as cell ids ordered by the time they were added, in a ring buffer.
+ *
+ * A cell is read or removed by its position, 0 being the oldest cell and size() - 1
+ * the newest, in O(1). Removing a cell from inside the set moves the cell at the
+ * nearer end into its place, so the order is exact at both ends, where most cells
+ * are removed, and only approximate inside.
+ */
+class TravelSet {
+
+	/**
+	 * Ring buffer of cell ids, the oldest at head
+	 */
+	private final int cells[];
+
+	/**
+	 * Index of the oldest cell in cells
+	 */
+	private int head = 0;
+
+	/**
+	 * Number of cells in the set
+	 */
+	private int size = 0;
+
+
+	/**
+	 * @param capacity Maximum number of cells in the set.
+	 */
+	TravelSet(int capacity) {
+		cells = new int[Math.max(1, capacity)];
+	} // end of TravelSet()
+
+
+	/**
+	 * @return Number of cells in the set.
+	 */
+	int size() {
+		return size;
+	} // end of size()
+
+
+	/**
+	 * @return True if the set has no cell. Otherwise false.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	} // end of isEmpty()
+
+
+	/**
+	 * Add a cell as the newest one.
+	 * @param id Id of the cell.
+	 */
+	void add(int id) {
+		cells[slot(size)] = id;
+		size++;
+	} // end of add()
+
+
+	/**
+	 * @param pos Position of a cell, from 0 (oldest) to size() - 1 (newest).
+	 * @return Id of the cell.
+	 */
+	int get(int pos) {
+		return cells[slot(pos)];
+	} // end of get()
+
+
+	/**
+	 * Remove the cell at pos.
+	 * @param pos Position of a cell, from 0 (oldest) to size() - 1 (newest).
+	 */
+	void removeAt(int pos) {
+		if (pos < size / 2) {
+			// fill the hole with the oldest cell
+			cells[slot(pos)] = cells[head];
+			head = head + 1 == cells.length ? 0 : head + 1;
+		}
+		else {
+			// fill the hole with the newest cell
+			cells[slot(pos)] = cells[slot(size - 1)];
+		}
+		size--;
+	} // end of removeAt()
+
+
+	/**
+	 * @param pos Position of a cell.
+	 * @return Index of the cell in cells.
+	 */
+	private int slot(int pos) {
+		int i = head + pos;
+		return i >= cells.length ? i - cells.length : i;
+	} // end of slot()
+
+} // end of class TravelSet
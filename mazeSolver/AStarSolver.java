@@ -0,0 +1,299 @@
+package mazeSolver;
+
+import java.util.Arrays;
+
+import maze.Maze;
+
+/**
+ * A* search from the entrance to the exit, which finds a shortest path while
+ * expanding mostly the cells towards the exit.
+ *
+ * The open set is an IntMinHeap of cell ids keyed by f = g + h, g being the number of
+ * steps from the entrance and h a lower bound of the steps left to the exit:
+ * the Manhattan distance in a normal maze, the hexagon distance in a hexagon maze.
+ * With tunnels, a path either walks to the exit, or walks to a tunnel mouth, hops and
+ * ends with a walk from a tunnel end to the exit, so h is the smaller of the walk and
+ * the walk to the nearest mouth + 1 + the shortest walk from any tunnel end to the exit.
+ * Every h is consistent, so a cell popped from the heap is never reached again.
+ *
+ * The walk to the nearest mouth is looked up in a distance field, made once by a
+ * breadth-first search from all tunnel ends at once through the cells with the walls
+ * ignored, so h is O(1) however many tunnels there are. The field holds 2 bytes per
+ * cell, capped at Character.MAX_VALUE which keeps it a consistent lower bound, and is
+ * kept for the next solve of a maze of the same shape and tunnels.
+ *
+ * cellsExplored() is the number of cells expanded, heapOperations() the number of
+ * pushes, key updates and pops. solve() returns the path, and only its cells are
+ * drawn with drawFtPrt() by solveMaze().
+ */
+public class AStarSolver implements MazeSolver {
+
+	/**
+	 * Names of the phases timed in SolveResult
+	 */
+	private static final String PHASES[] = { "heuristic", "search", "path" };
+
+	private Maze maze;
+	private IntMinHeap open = new IntMinHeap(0);
+
+	/**
+	 * parent[id] is the cell cell id was reached from, the entrance for itself, -1 if
+	 * it was not reached
+	 */
+	private int parent[] = new int[0];
+
+	/**
+	 * Cells reached by the last solve, in order, to reset parent for the next one
+	 */
+	private int reached[] = new int[0];
+	private int reachedNum = 0;
+
+	private boolean isHex;
+	private int exitR;
+	private int exitC;
+
+	/**
+	 * Ids of the tunnel ends, and the shortest walk from one to the exit
+	 */
+	private int mouths[] = new int[0];
+	private int mouthNum;
+	private int mouthToExit;
+
+	/**
+	 * toMouth[id] is the number of steps from cell id to the nearest tunnel end with no
+	 * wall in the way, capped at Character.MAX_VALUE, for mazes of fieldType and
+	 * fieldSizeR x fieldSizeC cells whose tunnel ends are mouths
+	 */
+	private char toMouth[] = new char[0];
+	private int fieldType = -1;
+	private int fieldSizeR;
+	private int fieldSizeC;
+
+	private boolean solved = false;
+	private int cellsExplored = 0;
+	private long heapOperations = 0;
+	private int pathLength = 0;
+
+
+	@Override
+	public void solveMaze(Maze maze) {
+		solve(maze).draw(maze);
+	} // end of solveMaze()
+
+
+	@Override
+	public SolveResult solve(Maze maze) {
+		long start = System.nanoTime();
+		this.maze = maze;
+		int cellNum = maze.cellCount();
+		int dirs[] = maze.directions();
+		if (open.capacity() != cellNum) {
+			open = new IntMinHeap(cellNum);
+			parent = new int[cellNum];
+			reached = new int[cellNum];
+			Arrays.fill(parent, -1);
+		}
+		else {
+			open.clear();
+			for (int i = 0; i < reachedNum; i++)
+				parent[reached[i]] = -1;
+		}
+		reachedNum = 0;
+		solved = false;
+		cellsExplored = 0;
+		pathLength = 0;
+		long operationsBefore = open.operations();
+		setUpHeuristic();
+		long setUp = System.nanoTime();
+
+		int entrance = maze.id(maze.entrance.r, maze.entrance.c);
+		int exit = maze.id(maze.exit.r, maze.exit.c);
+		parent[entrance] = entrance;
+		reached[reachedNum++] = entrance;
+		open.push(entrance, h(entrance));
+
+		while (!open.isEmpty()) {
+			int id = open.pop();
+			if (id == exit) {
+				solved = true;
+				break;
+			}
+			cellsExplored++;
+			int g = open.key(id) - h(id);
+			for (int k : dirs) {
+				if (maze.isOpen(id, k))
+					relax(maze.neighbour(id, k), id, g + 1);
+			}
+			relax(maze.tunnel(id), id, g + 1);
+		}
+		heapOperations = open.operations() - operationsBefore;
+		long searched = System.nanoTime();
+		if (!solved)
+			return new SolveResult(false, null, cellsExplored, PHASES, new long[] { setUp - start, searched - setUp, 0 });
+
+		// the path from exit back to entrance, put in order from its end
+		for (int id = exit; id != entrance; id = parent[id])
+			pathLength++;
+		pathLength++;
+		int path[] = new int[pathLength];
+		for (int i = pathLength - 1, id = exit; i >= 0; i--, id = parent[id])
+			path[i] = id;
+		long nanos[] = { setUp - start, searched - setUp, System.nanoTime() - searched };
+		return new SolveResult(true, path, cellsExplored, PHASES, nanos);
+	} // end of solve()
+
+
+	/**
+	 * Reach cell next from cell id in g steps, if that is shorter than known.
+	 * @param next Id of a cell, -1 if there is none.
+	 * @param id Id of the cell next is reached from.
+	 * @param g Number of steps from the entrance to next through id.
+	 */
+	private void relax(int next, int id, int g) {
+		if (next < 0)
+			return;
+		if (parent[next] < 0) {
+			parent[next] = id;
+			reached[reachedNum++] = next;
+			open.push(next, g + h(next));
+		}
+		else if (open.contains(next) && g + h(next) < open.key(next)) {
+			parent[next] = id;
+			open.push(next, g + h(next));
+		}
+	} // end of relax()
+
+
+	/**
+	 * Set up h() for maze: its metric, its exit, and the distance field of its tunnel
+	 * ends if it has tunnels, made again only if the tunnels or the shape changed.
+	 */
+	private void setUpHeuristic() {
+		isHex = maze.type == Maze.HEX;
+		exitR = maze.exit.r;
+		exitC = maze.exit.c;
+		mouthNum = 0;
+		if (maze.type != Maze.TUNNEL || maze.sizeTunnel == 0)
+			return;
+
+		boolean isSame = fieldType == maze.type && fieldSizeR == maze.sizeR && fieldSizeC == maze.sizeC
+				&& mouths.length == 2 * maze.sizeTunnel;
+		if (mouths.length != 2 * maze.sizeTunnel)
+			mouths = new int[2 * maze.sizeTunnel];
+		mouthNum = mouths.length;
+		mouthToExit = Integer.MAX_VALUE;
+		for (int i = 0; i < mouthNum; i++) {
+			int id = maze.tunnelEnd(i);
+			isSame = isSame && mouths[i] == id;
+			mouths[i] = id;
+			mouthToExit = Math.min(mouthToExit, distance(maze.row(id), maze.col(id), exitR, exitC));
+		}
+		if (!isSame)
+			fillToMouth();
+	} // end of setUpHeuristic()
+
+
+	/**
+	 * Make toMouth by a breadth-first search from all the tunnel ends at once, queueing
+	 * the cells in reached, which is free until the search for the exit starts.
+	 */
+	private void fillToMouth() {
+		int cellNum = maze.cellCount();
+		int dirs[] = maze.directions();
+		if (toMouth.length != cellNum)
+			toMouth = new char[cellNum];
+		Arrays.fill(toMouth, Character.MAX_VALUE);
+		// forget the shape while the field is incomplete
+		fieldType = -1;
+
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < mouthNum; i++) {
+			if (toMouth[mouths[i]] != 0) {
+				toMouth[mouths[i]] = 0;
+				reached[tail++] = mouths[i];
+			}
+		}
+		while (head < tail) {
+			int id = reached[head++];
+			int d = toMouth[id] + 1;
+			// cells farther away keep the cap
+			if (d >= Character.MAX_VALUE)
+				break;
+			for (int k : dirs) {
+				int next = maze.neighbour(id, k);
+				if (next >= 0 && toMouth[next] == Character.MAX_VALUE) {
+					toMouth[next] = (char) d;
+					reached[tail++] = next;
+				}
+			}
+		}
+		fieldType = maze.type;
+		fieldSizeR = maze.sizeR;
+		fieldSizeC = maze.sizeC;
+	} // end of fillToMouth()
+
+
+	/**
+	 * @param id Id of a cell.
+	 * @return Lower bound of the number of steps from cell id to the exit.
+	 */
+	private int h(int id) {
+		int walk = distance(maze.row(id), maze.col(id), exitR, exitC);
+		if (mouthNum == 0)
+			return walk;
+		return (int) Math.min(walk, (long) toMouth[id] + 1 + mouthToExit);
+	} // end of h()
+
+
+	/**
+	 * @param r1 Row coordinate of a cell, as in map[r][c].
+	 * @param c1 Column coordinate of a cell, as in map[r][c].
+	 * @param r2 Row coordinate of a cell, as in map[r][c].
+	 * @param c2 Column coordinate of a cell, as in map[r][c].
+	 * @return Number of steps between the two cells with no wall in the way.
+	 */
+	private int distance(int r1, int c1, int r2, int c2) {
+		int dr = r2 - r1;
+		int dc = c2 - c1;
+		// hexagon steps change r and c together along NORTHEAST and SOUTHWEST
+		if (isHex && (dr ^ dc) >= 0)
+			return Math.max(Math.abs(dr), Math.abs(dc));
+		return Math.abs(dr) + Math.abs(dc);
+	} // end of distance()
+
+
+	@Override
+	public boolean isSolved() {
+		return solved;
+	} // end of isSolved()
+
+
+	/**
+	 * Returns the number of cells expanded, i.e. popped from the heap before the exit.
+	 */
+	@Override
+	public int cellsExplored() {
+		return cellsExplored;
+	} // end of cellsExplored()
+
+
+	/**
+	 * Use after solveMaze(maze).
+	 * @return Number of pushes, key updates and pops of the heap in the last solve.
+	 */
+	public long heapOperations() {
+		return heapOperations;
+	} // end of heapOperations()
+
+
+	/**
+	 * Use after solveMaze(maze).
+	 * @return Number of cells of the shortest path found, entrance and exit included,
+	 * 0 if the maze was not solved.
+	 */
+	public int pathLength() {
+		return pathLength;
+	} // end of pathLength()
+
+} // end of class AStarSolver
@@ -1,9 +1,9 @@
 package mazeSolver;
 
-import java.util.HashSet;
 import java.util.Random;
 import java.util.Stack;
 import maze.Cell;
+import maze.CellSet;
 import maze.Maze;
 
 /**
@@ -35,8 +35,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 	Stack<Cell> stack1;
 	Stack<Cell> stack2;
 
-	boolean visited1[][];
-	boolean visited2[][];
+	CellSet visited1;
+	CellSet visited2;
 
 	int mazeCSize;
 	int mazeRSize;
@@ -53,11 +53,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 	Cell exitFront;
 	Cell enteranceFront;
 	int cellsExplored;
-	HashSet<Cell> tunnels1;
-	HashSet<Cell> tunnels2;
-
-	HashSet<Cell> startPath;
-	HashSet<Cell> endPath;
+	CellSet startPath;
+	CellSet endPath;
 
 	Cell visitNeigh1;
 	Cell visitNeigh2;
@@ -71,13 +68,13 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 	 * @see solveMaze(Maze maze) is responsible to run the whole algorithm
 	 * to solve mazes. Components are as below:
 	 * <ul>
-	 * <li>visited maze to reflect which cells are visited. @see visited1 and @see visited2
+	 * <li>visited maze to reflect which cells are visited, indexed by cell id. @see visited1 and @see visited2
 	 * <li> @see stack1  and @see stack2 to save the paths of solvers
 	 * <li> @see unVisitedNeighs1 and unVisitedNeighs2 to list all unvisited neighbours of current cell
 	 * <li> @see direction1 and direction2 to indicate the new direction to next neighbour
 	 * <li> @see allVisited1 and @see allVisited2 to indicate whether all cells in the maze are visited
 	 * <li> @see enteranceFront and exitFront to save the DFS fronts.
-	 * <li> In a case the maze is tunnel @see tunnels1 and @see tunnels2 will save the tunnels cells
+	 * <li> In a case the maze is tunnel, tunnel cells are looked up by maze.isTunnel(id)
 	 * <li> @see tunnelExit1 and @see tunnelExit2 indicate whether we have exited from a tunnel.
 	 * <li> @see isSolved announce if the maze is solved and two paths reach each other.
 	 * <li> @see flipflop: this variable is very important as it allows both paths to go ahead simultaneously 
@@ -95,6 +92,7 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 	public void solveMaze(Maze maze) {
 		try {
 			this.maze = maze;
+			maze.buildCellView();
 			allVisited1 =0;
 			allVisited2 =0;
 			visitNeigh1=null;
@@ -108,27 +106,13 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 			mazeCSize = maze.sizeR;
 			mazeRSize = maze.sizeC;
 			mazeSize =mazeRSize*mazeCSize;
-			visited1 = new boolean[mazeRSize][mazeCSize];
-			visited2 = new boolean[mazeRSize][mazeCSize];
+			visited1 = CellSet.reuse(visited1, maze.cellCount());
+			visited2 = CellSet.reuse(visited2, maze.cellCount());
 
 			//maze pick start points
 			pickStartingCell();
-			startPath  = new HashSet<Cell>();
-			endPath  = new HashSet<Cell>();
-			//find maze tunnels
-			if(maze.type==Maze.TUNNEL){
-				tunnels1  = new HashSet<Cell>();	
-				tunnels2  = new HashSet<Cell>();			
-
-				for(int i=0; i<mazeRSize;i++){
-					for(int j=0;j<mazeCSize;j++){
-						if(maze.map[i][j].tunnelTo!=null){
-							tunnels1.add(maze.map[i][j]);
-							tunnels2.add(maze.map[i][j]);
-						}
-					}
-				}
-			}
+			startPath = CellSet.reuse(startPath, maze.cellCount());
+			endPath = CellSet.reuse(endPath, maze.cellCount());
 			flipflop = false;
 
 			dfsr();
@@ -156,20 +140,14 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 
 	/***
 	 * Since solving the maze start at both enterance and exit points then these 
-	 * cells are marked as visited. formula to calculate visited cell in hex type is different 
-	 * from other types
+	 * cells are marked as visited.
 	 * @see pickStartingCell()
 	 */
 	private void pickStartingCell(){
 		cellsExplored++;
 		//Randomly pick a starting cell
-		if(maze.type!=Maze.HEX){
-			visited1[maze.entrance.r][maze.entrance.c]=true;
-			visited2[maze.exit.r][maze.exit.c]=true;
-		}else{
-			visited1[maze.entrance.r][maze.entrance.c-(maze.entrance.r+1)/2]=true;
-			visited2[maze.exit.r][maze.exit.c-(maze.exit.r+1)/2]=true;
-		}
+		visited1.add(maze.id(maze.entrance.r, maze.entrance.c));
+		visited2.add(maze.id(maze.exit.r, maze.exit.c));
 		allVisited1++;
 		allVisited2++;		
 		enteranceFront = maze.entrance;
@@ -206,8 +184,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					if(enteranceFront!=visitNeigh1){
 						visitNeigh1 = enteranceFront;
 						enteranceFront = pickUnvisitedNeighStart(visitNeigh1);
-						startPath.add(enteranceFront);
-						if(endPath.contains(enteranceFront)){
+						startPath.add(maze.id(enteranceFront.r, enteranceFront.c));
+						if(endPath.contains(maze.id(enteranceFront.r, enteranceFront.c))){
 							isSolved=true;
 						}
 						flipflop=false;					
@@ -225,8 +203,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					if(exitFront!=visitNeigh2){
 						visitNeigh2 = exitFront;
 						exitFront = pickUnvisitedNeighEnd(visitNeigh2);
-						endPath.add(exitFront);
-						if(startPath.contains(exitFront)){
+						endPath.add(maze.id(exitFront.r, exitFront.c));
+						if(startPath.contains(maze.id(exitFront.r, exitFront.c))){
 							isSolved=true;
 						}
 						flipflop=true;
@@ -241,7 +219,7 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					}
 				}
 			}
-			if(endPath.contains(enteranceFront)||startPath.contains(exitFront))
+			if(endPath.contains(maze.id(enteranceFront.r, enteranceFront.c))||startPath.contains(maze.id(exitFront.r, exitFront.c)))
 				return;
 		} catch (Exception e) {
 			System.out.println(e);
@@ -270,8 +248,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 			if(maze.type==Maze.HEX){
 				//if this neighbor is not null and is not marked as visited then pick the index and count 
 				//as unvisited neighbour
-				if(cell.neigh[i]!=null && !visited1[cell.neigh[i].r][cell.neigh[i].c-(cell.neigh[i].r+1)/2]
-						&& !maze.map[cell.r][cell.c].wall[i].present){
+				if(cell.neigh[i]!=null && !visited1.contains(maze.id(cell.neigh[i].r, cell.neigh[i].c))
+						&& !maze.map[cell.r][cell.c].wall[i].isPresent()){
 					unvisitedneighbours[unVisitedNeighs1]=i;
 					unVisitedNeighs1++;
 				}
@@ -280,15 +258,15 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 				if(maze.type==Maze.TUNNEL && cell.tunnelTo!=null){
 					//if it is tunnel exit
 					if(tunnelExit1){
-						if(cell.neigh[i]!=null && !visited1[cell.neigh[i].r][cell.neigh[i].c]
-								&& !maze.map[cell.r][cell.c].wall[i].present){
+						if(cell.neigh[i]!=null && !visited1.contains(maze.id(cell.neigh[i].r, cell.neigh[i].c))
+								&& !maze.map[cell.r][cell.c].wall[i].isPresent()){
 							unvisitedneighbours[unVisitedNeighs1]=i;
 							unVisitedNeighs1++;
 						}
 					}else{ //if is tunnel entrance
 						if(cell.tunnelTo.neigh[i]!=null && 
-								!visited1[cell.tunnelTo.neigh[i].r][cell.tunnelTo.neigh[i].c]
-										&& !maze.map[cell.tunnelTo.r][cell.tunnelTo.c].wall[i].present){
+								!visited1.contains(maze.id(cell.tunnelTo.neigh[i].r, cell.tunnelTo.neigh[i].c))
+										&& !maze.map[cell.tunnelTo.r][cell.tunnelTo.c].wall[i].isPresent()){
 							unvisitedneighbours[unVisitedNeighs1]=i;
 							unVisitedNeighs1++;
 						}
@@ -297,8 +275,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					//if this neighbor is not null and is not marked as visited then pick the index and count 
 					//as unvisited neighbour. there is no difference between tunnel and normal maze to count 
 					//unvisited neighbours
-					if(cell.neigh[i]!=null && !visited1[cell.neigh[i].r][cell.neigh[i].c]
-							&& !maze.map[cell.r][cell.c].wall[i].present){
+					if(cell.neigh[i]!=null && !visited1.contains(maze.id(cell.neigh[i].r, cell.neigh[i].c))
+							&& !maze.map[cell.r][cell.c].wall[i].isPresent()){
 						unvisitedneighbours[unVisitedNeighs1]=i;
 						unVisitedNeighs1++;
 					}
@@ -313,17 +291,17 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 			Cell next = cell.neigh[direction1];
 			//check tunnel maze different situations
 			if(maze.type==Maze.TUNNEL){
-				if(tunnels1.contains(next)){
-					if(!visited1[next.r][next.c]){
+				if(maze.isTunnel(maze.id(next.r, next.c))){
+					if(!visited1.contains(maze.id(next.r, next.c))){
 						//if probable neighbour is tunnel and it is not visited yet
 						//then current cell's wall to be removed, tunnel cell neighbor marked as visited, 
 						//tunnel exit marked as visited, and next cell to be the tunnel exit
-						visited1[next.r][next.c]=true;
-						visited1[next.tunnelTo.r][next.tunnelTo.c]=true;
+						visited1.add(maze.id(next.r, next.c));
+						visited1.add(maze.id(next.tunnelTo.r, next.tunnelTo.c));
 						stack1.push(cell);
 						stack1.push(next);
 						maze.drawFtPrt(next);
-						startPath.add(next);
+						startPath.add(maze.id(next.r, next.c));
 						cell = next.tunnelTo;
 						cellsExplored++;
 						cellsExplored++;
@@ -343,7 +321,7 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 						stack1.push(cell);
 						cellsExplored++;
 						cell=cell.neigh[direction1];
-						visited1[cell.r][cell.c]=true;
+						visited1.add(maze.id(cell.r, cell.c));
 						allVisited1++;
 						tunnelExit1=false;
 					}
@@ -355,22 +333,18 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					stack1.push(cell);
 					cellsExplored++;
 					cell =next;
-					visited1[cell.r][cell.c]=true;
+					visited1.add(maze.id(cell.r, cell.c));
 					allVisited1++;
 				}
 			}else{//maze is not tunnel
 				//if the maze is not tunnel
 				// then the wall toward that cell to be removed,
 				//unvisited neighbour to be next cell and 
-				//depends on the maze type next cell marked as visited 
+				//next cell marked as visited 
 				stack1.push(cell);
 				cellsExplored++;
 				cell = next;
-				if(maze.type!=Maze.HEX){
-					visited1[cell.r][cell.c]=true;
-				}else{
-					visited1[cell.r][cell.c-(cell.r+1)/2]=true;
-				}
+				visited1.add(maze.id(cell.r, cell.c));
 				allVisited1++;
 			}
 		}
@@ -400,8 +374,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 			if(maze.type==Maze.HEX){
 				//if this neighbor is not null and is not marked as visited then pick the index and count 
 				//as unvisited neighbour
-				if(cell.neigh[i]!=null && !visited2[cell.neigh[i].r][cell.neigh[i].c-(cell.neigh[i].r+1)/2]
-						&& !maze.map[cell.r][cell.c].wall[i].present){
+				if(cell.neigh[i]!=null && !visited2.contains(maze.id(cell.neigh[i].r, cell.neigh[i].c))
+						&& !maze.map[cell.r][cell.c].wall[i].isPresent()){
 					unvisitedneighbours[unVisitedNeighs2]=i;
 					unVisitedNeighs2++;
 				}
@@ -410,15 +384,15 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 				if(maze.type==Maze.TUNNEL && cell.tunnelTo!=null){
 					//if it is tunnel exit
 					if(tunnelExit2){
-						if(cell.neigh[i]!=null && !visited2[cell.neigh[i].r][cell.neigh[i].c]
-								&& !maze.map[cell.r][cell.c].wall[i].present){
+						if(cell.neigh[i]!=null && !visited2.contains(maze.id(cell.neigh[i].r, cell.neigh[i].c))
+								&& !maze.map[cell.r][cell.c].wall[i].isPresent()){
 							unvisitedneighbours[unVisitedNeighs2]=i;
 							unVisitedNeighs2++;
 						}
 					}else{ //if is tunnel entrance
 						if(cell.tunnelTo.neigh[i]!=null && 
-								!visited2[cell.tunnelTo.neigh[i].r][cell.tunnelTo.neigh[i].c]
-										&& !maze.map[cell.tunnelTo.r][cell.tunnelTo.c].wall[i].present){
+								!visited2.contains(maze.id(cell.tunnelTo.neigh[i].r, cell.tunnelTo.neigh[i].c))
+										&& !maze.map[cell.tunnelTo.r][cell.tunnelTo.c].wall[i].isPresent()){
 							unvisitedneighbours[unVisitedNeighs2]=i;
 							unVisitedNeighs2++;
 						}
@@ -427,8 +401,8 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					//if this neighbor is not null and is not marked as visited then pick the index and count 
 					//as unvisited neighbour. there is no difference between tunnel and normal maze to count
 					// unvisited neighbours
-					if(cell.neigh[i]!=null && !visited2[cell.neigh[i].r][cell.neigh[i].c]
-							&& !maze.map[cell.r][cell.c].wall[i].present){
+					if(cell.neigh[i]!=null && !visited2.contains(maze.id(cell.neigh[i].r, cell.neigh[i].c))
+							&& !maze.map[cell.r][cell.c].wall[i].isPresent()){
 						unvisitedneighbours[unVisitedNeighs2]=i;
 						unVisitedNeighs2++;
 					}
@@ -443,17 +417,17 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 			Cell next = cell.neigh[direction2];
 			//check tunnel maze different situations
 			if(maze.type==Maze.TUNNEL){
-				if(tunnels2.contains(next)){
-					if(!visited2[next.r][next.c]){
+				if(maze.isTunnel(maze.id(next.r, next.c))){
+					if(!visited2.contains(maze.id(next.r, next.c))){
 						//if probable neighbour is tunnel and it is not visited yet
 						//then current cell's wall to be removed, tunnel cell neighbor marked as visited, 
 						//tunnel exit marked as visited, and next cell to be the tunnel exit
-						visited2[next.r][next.c]=true;
-						visited2[next.tunnelTo.r][next.tunnelTo.c]=true;
+						visited2.add(maze.id(next.r, next.c));
+						visited2.add(maze.id(next.tunnelTo.r, next.tunnelTo.c));
 						stack2.push(cell);
 						stack2.push(next);
 						maze.drawFtPrt(next);
-						endPath.add(next);
+						endPath.add(maze.id(next.r, next.c));
 						cell = next.tunnelTo;
 						cellsExplored++;
 						cellsExplored++;
@@ -473,7 +447,7 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 						stack2.push(cell);
 						cellsExplored++;
 						cell=cell.neigh[direction2];
-						visited2[cell.r][cell.c]=true;
+						visited2.add(maze.id(cell.r, cell.c));
 						allVisited2++;
 						tunnelExit2=false;
 					}
@@ -485,22 +459,18 @@ public class BiDirectionalRecursiveBacktrackerSolver implements MazeSolver {
 					stack2.push(cell);
 					cellsExplored++;
 					cell =next;
-					visited2[cell.r][cell.c]=true;
+					visited2.add(maze.id(cell.r, cell.c));
 					allVisited2++;
 				}
 			}else{//maze is not tunnel
 				//if the maze is not tunnel
 				// then the wall toward that cell to be removed,
 				//unvisited neighbour to be next cell and 
-				//depends on the maze type next cell marked as visited 
+				//next cell marked as visited 
 				stack2.push(cell);
 				cellsExplored++;
 				cell = next;
-				if(maze.type!=Maze.HEX){
-					visited2[cell.r][cell.c]=true;
-				}else{
-					visited2[cell.r][cell.c-(cell.r+1)/2]=true;
-				}
+				visited2.add(maze.id(cell.r, cell.c));
 				allVisited2++;
 			}
 		}
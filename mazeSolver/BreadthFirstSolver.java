@@ -0,0 +1,127 @@
+package mazeSolver;
+
+import maze.Maze;
+
+/**
+ * Breadth-first search from the entrance, which finds a shortest path to the exit in
+ * any maze, perfect or not, normal, tunnel or hexagon.
+ *
+ * Cells are worked on by id (see Maze.id()), with the queue of the search and the
+ * parent of every cell reached in one int[] of 2 * cellCount() ints, allocated once
+ * per solve, or not at all when solving mazes of the same size again. A tunnel is
+ * an edge like an open wall. solve() returns the path found, from entrance to exit,
+ * and solveMaze() draws only its cells with drawFtPrt(), so they are exactly the
+ * solution validated.
+ */
+public class BreadthFirstSolver implements MazeSolver {
+
+	/**
+	 * Names of the phases timed in SolveResult
+	 */
+	private static final String PHASES[] = { "search", "path" };
+
+	/**
+	 * Queue of the search in [0, cellNum), then parent[id] of every cell at
+	 * cellNum + id, -1 for a cell not reached
+	 */
+	private int work[] = new int[0];
+
+	private boolean solved = false;
+	private int cellsExplored = 0;
+	private int pathLength = 0;
+
+
+	@Override
+	public void solveMaze(Maze maze) {
+		solve(maze).draw(maze);
+	} // end of solveMaze()
+
+
+	@Override
+	public SolveResult solve(Maze maze) {
+		long start = System.nanoTime();
+		int cellNum = maze.cellCount();
+		int dirs[] = maze.directions();
+		if (work.length != 2 * cellNum)
+			work = new int[2 * cellNum];
+		for (int id = 0; id < cellNum; id++)
+			work[cellNum + id] = -1;
+		solved = false;
+		pathLength = 0;
+
+		int entrance = maze.id(maze.entrance.r, maze.entrance.c);
+		int exit = maze.id(maze.exit.r, maze.exit.c);
+		int head = 0;
+		int tail = 0;
+		work[tail++] = entrance;
+		work[cellNum + entrance] = entrance;
+
+		while (head < tail && !solved) {
+			int id = work[head++];
+			for (int k : dirs) {
+				if (maze.isOpen(id, k))
+					tail = visit(maze.neighbour(id, k), id, tail, cellNum);
+			}
+			tail = visit(maze.tunnel(id), id, tail, cellNum);
+			solved = work[cellNum + exit] >= 0;
+		}
+		cellsExplored = tail;
+		long searched = System.nanoTime();
+		if (!solved)
+			return new SolveResult(false, null, cellsExplored, PHASES, new long[] { searched - start, 0 });
+
+		// the path from exit back to entrance, put in order from its end
+		for (int id = exit; id != entrance; id = work[cellNum + id])
+			pathLength++;
+		pathLength++;
+		int path[] = new int[pathLength];
+		for (int i = pathLength - 1, id = exit; i >= 0; i--, id = work[cellNum + id])
+			path[i] = id;
+		long nanos[] = { searched - start, System.nanoTime() - searched };
+		return new SolveResult(true, path, cellsExplored, PHASES, nanos);
+	} // end of solve()
+
+
+	/**
+	 * Reach cell next from cell id, queueing it if it was not reached before.
+	 * @param next Id of a cell, -1 if there is none.
+	 * @param id Id of the cell next is reached from.
+	 * @param tail Index after the last cell of the queue.
+	 * @param cellNum Number of cells.
+	 * @return The new tail of the queue.
+	 */
+	private int visit(int next, int id, int tail, int cellNum) {
+		if (next >= 0 && work[cellNum + next] < 0) {
+			work[cellNum + next] = id;
+			work[tail++] = next;
+		}
+		return tail;
+	} // end of visit()
+
+
+	@Override
+	public boolean isSolved() {
+		return solved;
+	} // end of isSolved()
+
+
+	/**
+	 * Returns the number of cells reached by the search, including the ones still
+	 * queued when the exit was reached.
+	 */
+	@Override
+	public int cellsExplored() {
+		return cellsExplored;
+	} // end of cellsExplored()
+
+
+	/**
+	 * Use after solveMaze(maze).
+	 * @return Number of cells of the shortest path found, entrance and exit included,
+	 * 0 if the maze was not solved.
+	 */
+	public int pathLength() {
+		return pathLength;
+	} // end of pathLength()
+
+} // end of class BreadthFirstSolver
@@ -0,0 +1,334 @@
+package mazeSolver;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import maze.Maze;
+import maze.MazeTraversal;
+
+/**
+ * Dead-end filling on all cores of a ForkJoinPool: a perfect maze is a tree, so
+ * filling every dead end, then every cell left as a dead end by that, and so on,
+ * leaves exactly the path from entrance to exit. Entrance and exit are never filled.
+ *
+ * The maze is split in strips of rows. First every strip counts the passages of its
+ * cells (open walls and tunnels) into an AtomicIntegerArray of degrees. Then every
+ * strip fills its dead ends, of degree 1 or 0, from a worklist of its own: a cell is
+ * filled by CAS of its degree to FILLED, so a cell queued by two strips is filled once,
+ * and filling decrements the degrees of its neighbours, the strip taking a neighbour
+ * down to degree 1 queueing it. Filling runs inward across strips without locks.
+ *
+ * The cells left are then walked from entrance to exit, returned as the path by
+ * solve() and drawn with drawFtPrt() by solveMaze(). In a maze with loops the loops
+ * are never filled, so the path is found by a traversal of the cells left instead.
+ */
+public class DeadEndFillingSolver implements MazeSolver {
+
+	/**
+	 * Names of the phases timed in SolveResult
+	 */
+	private static final String PHASES[] = { "count", "fill", "path" };
+
+	/**
+	 * Minimum number of cells in a strip of rows processed by one task
+	 */
+	protected final static int STRIP_CELLS = 1 << 16;
+
+	/**
+	 * Degree of a filled cell, low enough to stay negative whatever is subtracted
+	 */
+	private static final int FILLED = Integer.MIN_VALUE / 2;
+
+	/**
+	 * Pool the strips run on
+	 */
+	private final ForkJoinPool pool;
+
+	private Maze maze;
+	private int entrance;
+	private int exit;
+
+	/**
+	 * Number of passages of every cell to cells not filled, FILLED once filled
+	 */
+	private AtomicIntegerArray degree = new AtomicIntegerArray(0);
+
+	private boolean solved = false;
+	private int cellsExplored = 0;
+	private int pathLength = 0;
+
+
+	/**
+	 * Fill on the common ForkJoinPool.
+	 */
+	public DeadEndFillingSolver() {
+		this(ForkJoinPool.commonPool());
+	} // end of DeadEndFillingSolver()
+
+
+	/**
+	 * @param pool Pool the strips run on.
+	 */
+	public DeadEndFillingSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	} // end of DeadEndFillingSolver()
+
+
+	@Override
+	public void solveMaze(Maze maze) {
+		solve(maze).draw(maze);
+	} // end of solveMaze()
+
+
+	@Override
+	public SolveResult solve(Maze maze) {
+		long start = System.nanoTime();
+		this.maze = maze;
+		int cellNum = maze.cellCount();
+		if (degree.length() != cellNum)
+			degree = new AtomicIntegerArray(cellNum);
+		entrance = maze.id(maze.entrance.r, maze.entrance.c);
+		exit = maze.id(maze.exit.r, maze.exit.c);
+		solved = false;
+		pathLength = 0;
+
+		int stripRows = Math.max(1, STRIP_CELLS / Math.max(1, maze.sizeC));
+		pool.invoke(new Strip(0, maze.sizeR, stripRows, false));
+		long counted = System.nanoTime();
+		pool.invoke(new Strip(0, maze.sizeR, stripRows, true));
+		long filled = System.nanoTime();
+		// every cell had its passages counted
+		cellsExplored = cellNum;
+
+		int path[] = walk();
+		if (path == null)
+			path = traverse();
+		solved = path != null;
+		pathLength = solved ? path.length : 0;
+		long nanos[] = { counted - start, filled - counted, System.nanoTime() - filled };
+		return new SolveResult(solved, path, cellsExplored, PHASES, nanos);
+	} // end of solve()
+
+
+	/**
+	 * Walk the cells left from entrance to exit, as long as there is a single way on,
+	 * as in a perfect maze.
+	 * @return Ids of the cells walked, from entrance to exit, null if the walk met a
+	 * fork or a dead end before the exit.
+	 */
+	private int[] walk() {
+		int dirs[] = maze.directions();
+		int cellNum = maze.cellCount();
+		int path[] = null;
+		// first check that there is one way and count its cells, then record them
+		for (int pass = 0; pass < 2; pass++) {
+			int prev = -1;
+			int id = entrance;
+			int length = 1;
+			while (id != exit) {
+				if (pass == 1)
+					path[length - 1] = id;
+				int next = -1;
+				int wayNum = 0;
+				for (int k : dirs) {
+					int neigh = maze.neighbour(id, k);
+					if (neigh >= 0 && neigh != prev && degree.get(neigh) >= 0 && maze.isOpen(id, k)) {
+						next = neigh;
+						wayNum++;
+					}
+				}
+				int neigh = maze.tunnel(id);
+				if (neigh >= 0 && neigh != prev && degree.get(neigh) >= 0) {
+					next = neigh;
+					wayNum++;
+				}
+				if (wayNum != 1 || length == cellNum)
+					return null;
+				prev = id;
+				id = next;
+				length++;
+			}
+			if (pass == 0)
+				path = new int[length];
+			else
+				path[length - 1] = exit;
+		}
+		return path;
+	} // end of walk()
+
+
+	/**
+	 * Find a shortest path through the cells left, for mazes with loops.
+	 * @return Ids of the cells of the path, from entrance to exit, null if there is none.
+	 */
+	private int[] traverse() {
+		int cellNum = maze.cellCount();
+		long left[] = new long[(cellNum + 63) >>> 6];
+		for (int id = 0; id < cellNum; id++) {
+			if (degree.get(id) >= 0)
+				left[id >>> 6] |= 1L << id;
+		}
+		MazeTraversal traversal = new MazeTraversal(maze);
+		traversal.traverse(entrance, left);
+		if (!traversal.isReached(exit))
+			return null;
+
+		// back from the exit, one step nearer to the entrance at a time
+		int dirs[] = maze.directions();
+		int path[] = new int[traversal.distance(exit) + 1];
+		int id = exit;
+		for (int i = path.length - 1; i > 0; i--) {
+			path[i] = id;
+			int step = i - 1;
+			int next = maze.tunnel(id);
+			if (next < 0 || traversal.distance(next) != step) {
+				for (int k : dirs) {
+					next = maze.neighbour(id, k);
+					if (next >= 0 && traversal.distance(next) == step && maze.isOpen(id, k))
+						break;
+				}
+			}
+			id = next;
+		}
+		path[0] = entrance;
+		return path;
+	} // end of traverse()
+
+
+	/**
+	 * @param id Id of a cell.
+	 * @return Number of passages of cell id.
+	 */
+	private int countPassages(int id) {
+		int count = 0;
+		for (int k : maze.directions()) {
+			if (maze.isOpen(id, k) && maze.neighbour(id, k) >= 0)
+				count++;
+		}
+		if (maze.tunnel(id) >= 0)
+			count++;
+		return count;
+	} // end of countPassages()
+
+
+	@Override
+	public boolean isSolved() {
+		return solved;
+	} // end of isSolved()
+
+
+	/**
+	 * Returns the number of cells examined, i.e. every cell of the maze, as every one
+	 * has its passages counted.
+	 */
+	@Override
+	public int cellsExplored() {
+		return cellsExplored;
+	} // end of cellsExplored()
+
+
+	/**
+	 * Use after solveMaze(maze).
+	 * @return Number of cells of the path found, entrance and exit included, 0 if the
+	 * maze was not solved.
+	 */
+	public int pathLength() {
+		return pathLength;
+	} // end of pathLength()
+
+
+	/**
+	 * Task counting the passages of rows [from, to), or filling their dead ends.
+	 */
+	private class Strip extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int stripRows;
+		private final boolean isFill;
+
+		/**
+		 * Cells to fill, from work[0] to work[size - 1]
+		 */
+		private int work[];
+		private int size;
+
+		Strip(int from, int to, int stripRows, boolean isFill) {
+			this.from = from;
+			this.to = to;
+			this.stripRows = stripRows;
+			this.isFill = isFill;
+		} // end of Strip()
+
+		@Override
+		protected void compute() {
+			if (to - from > stripRows) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new Strip(from, mid, stripRows, isFill), new Strip(mid, to, stripRows, isFill));
+				return;
+			}
+
+			int first = from * maze.sizeC;
+			int last = to * maze.sizeC;
+			if (!isFill) {
+				// published to the filling strips by the end of invoke()
+				for (int id = first; id < last; id++)
+					degree.setPlain(id, countPassages(id));
+				return;
+			}
+
+			work = new int[256];
+			size = 0;
+			for (int id = first; id < last; id++) {
+				int d = degree.get(id);
+				if (d >= 0 && d <= 1 && id != entrance && id != exit)
+					push(id);
+			}
+			while (size > 0)
+				fill(work[--size]);
+		} // end of compute()
+
+		/**
+		 * Fill cell id if no other strip did, and queue the neighbours it leaves as dead ends.
+		 * @param id Id of a dead end.
+		 */
+		private void fill(int id) {
+			int d;
+			do {
+				d = degree.get(id);
+				if (d < 0)
+					return;
+			} while (!degree.compareAndSet(id, d, FILLED));
+
+			for (int k : maze.directions()) {
+				if (maze.isOpen(id, k))
+					reduce(maze.neighbour(id, k));
+			}
+			reduce(maze.tunnel(id));
+		} // end of fill()
+
+		/**
+		 * Take a passage off cell id, queueing it if that makes it a dead end.
+		 * @param id Id of a cell next to a cell just filled, -1 if there is none.
+		 */
+		private void reduce(int id) {
+			// a filled cell has nothing left to take
+			if (id < 0 || degree.get(id) < 0)
+				return;
+			if (degree.decrementAndGet(id) == 1 && id != entrance && id != exit)
+				push(id);
+		} // end of reduce()
+
+		private void push(int id) {
+			if (size == work.length)
+				work = Arrays.copyOf(work, 2 * size);
+			work[size++] = id;
+		} // end of push()
+
+	} // end of class Strip
+
+} // end of class DeadEndFillingSolver
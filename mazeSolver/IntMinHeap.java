@@ -0,0 +1,162 @@
+package mazeSolver;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of cell ids by int key, indexed by id, so that the key of a cell
+ * in the heap can be lowered in O(log n) without boxing a node per cell.
+ */
+class IntMinHeap {
+
+	/**
+	 * Cell ids in heap order, heap[0] has the smallest key
+	 */
+	private final int heap[];
+
+	/**
+	 * pos[id] is the index of cell id in heap, -1 if it is not in the heap
+	 */
+	private final int pos[];
+
+	/**
+	 * key[id] is the key of cell id, kept after it is popped
+	 */
+	private final int key[];
+
+	private int size = 0;
+
+	/**
+	 * Number of pushes, key updates and pops since construction
+	 */
+	private long operations = 0;
+
+
+	/**
+	 * @param capacity Number of cells, ids are in [0, capacity).
+	 */
+	IntMinHeap(int capacity) {
+		heap = new int[capacity];
+		pos = new int[capacity];
+		key = new int[capacity];
+		Arrays.fill(pos, -1);
+	} // end of IntMinHeap()
+
+
+	/**
+	 * @return Number of cells ids can be taken from.
+	 */
+	int capacity() {
+		return pos.length;
+	} // end of capacity()
+
+
+	/**
+	 * Remove every cell, in O(size()).
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++)
+			pos[heap[i]] = -1;
+		size = 0;
+	} // end of clear()
+
+
+	boolean isEmpty() {
+		return size == 0;
+	} // end of isEmpty()
+
+
+	/**
+	 * @param id Id of a cell.
+	 * @return True if cell id is in the heap. Otherwise false.
+	 */
+	boolean contains(int id) {
+		return pos[id] >= 0;
+	} // end of contains()
+
+
+	/**
+	 * @param id Id of a cell which is or was in the heap.
+	 * @return Its key, the last one given to it.
+	 */
+	int key(int id) {
+		return key[id];
+	} // end of key()
+
+
+	/**
+	 * Add cell id with key k, or lower its key to k if it is in the heap already.
+	 * @param id Id of a cell.
+	 * @param k Key, not greater than the key of id if it is in the heap.
+	 */
+	void push(int id, int k) {
+		operations++;
+		key[id] = k;
+		int i = pos[id];
+		if (i < 0) {
+			i = size++;
+			heap[i] = id;
+			pos[id] = i;
+		}
+		siftUp(i);
+	} // end of push()
+
+
+	/**
+	 * Remove the cell with the smallest key.
+	 * @return Its id.
+	 */
+	int pop() {
+		operations++;
+		int top = heap[0];
+		pos[top] = -1;
+		if (--size > 0) {
+			heap[0] = heap[size];
+			pos[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	} // end of pop()
+
+
+	/**
+	 * @return Number of pushes, key updates and pops since construction.
+	 */
+	long operations() {
+		return operations;
+	} // end of operations()
+
+
+	private void siftUp(int i) {
+		int id = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (key[heap[parent]] <= key[id])
+				break;
+			heap[i] = heap[parent];
+			pos[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = id;
+		pos[id] = i;
+	} // end of siftUp()
+
+
+	private void siftDown(int i) {
+		int id = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size)
+				break;
+			if (child + 1 < size && key[heap[child + 1]] < key[heap[child]])
+				child++;
+			if (key[heap[child]] >= key[id])
+				break;
+			heap[i] = heap[child];
+			pos[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = id;
+		pos[id] = i;
+	} // end of siftDown()
+
+} // end of class IntMinHeap
@@ -31,4 +31,20 @@ public interface MazeSolver
 	 * It is not required to be accurate and no marks are given (or lost) on it. 
 	 */
 	public abstract int cellsExplored();
+
+
+	/**
+	 * Find the solution on given maze and return it, with the time taken, without
+	 * drawing foot prints. Solvers working on cell ids return the path, which is checked
+	 * by maze.validate(path); the others only draw their foot prints, as solveMaze(maze)
+	 * does, for maze.validate().
+	 * @param maze The maze to solve.
+	 * @return The solution, its path null if the solver returns none.
+	 */
+	public default SolveResult solve(Maze maze) {
+		long start = System.nanoTime();
+		solveMaze(maze);
+		long nanos[] = { System.nanoTime() - start };
+		return new SolveResult(isSolved(), null, cellsExplored(), new String[] { "solve" }, nanos);
+	} // end of solve()
 } // end of interface mazeGenerator
@@ -0,0 +1,248 @@
+package mazeSolver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import maze.Maze;
+
+/**
+ * Bidirectional breadth-first search on two threads: the search from the entrance
+ * runs on the calling thread while the search from the exit runs on a pool thread.
+ *
+ * Each search claims the cells it reaches by CAS in a shared AtomicIntegerArray of
+ * owner tags, so a cell is reached by one search only. A search finding a passage to
+ * a cell claimed by the other one has found where they meet: the first such passage
+ * is recorded and both searches stop. The path is then joined from the parent links
+ * of the two sides, entrance to meeting point to exit, returned by solve() and drawn
+ * with drawFtPrt() by solveMaze().
+ *
+ * In a perfect maze the path is the solution. In a maze with loops it is a path, not
+ * always the shortest one, as the searches run at their own pace.
+ */
+public class ParallelBidirectionalSolver implements MazeSolver {
+
+	/**
+	 * Names of the phases timed in SolveResult
+	 */
+	private static final String PHASES[] = { "search", "path" };
+
+	/**
+	 * Owner tags of the cells
+	 */
+	private static final int FREE = 0;
+	private static final int FROM_ENTRANCE = 1;
+	private static final int FROM_EXIT = 2;
+
+	/**
+	 * Pool the search from the exit runs on
+	 */
+	private final ForkJoinPool pool;
+
+	private Maze maze;
+
+	/**
+	 * Owner tag of every cell
+	 */
+	private AtomicIntegerArray owner = new AtomicIntegerArray(0);
+
+	/**
+	 * parent[id] is the cell cell id was reached from by its owner, itself for the
+	 * entrance and the exit. Written by the owner only, read once both searches joined.
+	 */
+	private int parent[] = new int[0];
+
+	/**
+	 * Queue of each search, indexed by owner tag - 1, holding every cell it claimed
+	 */
+	private int queues[][] = { new int[0], new int[0] };
+
+	/**
+	 * Number of cells claimed by each search, indexed by owner tag - 1
+	 */
+	private int claimed[] = new int[2];
+
+	/**
+	 * Passage the searches met on, as (entrance side id << 32 | exit side id), -1 if none
+	 */
+	private final AtomicLong meeting = new AtomicLong(-1);
+
+	/**
+	 * Set once the searches met, to stop both
+	 */
+	private volatile boolean isMet = false;
+
+	private boolean solved = false;
+	private int pathLength = 0;
+
+
+	/**
+	 * Search from the exit on the common ForkJoinPool.
+	 */
+	public ParallelBidirectionalSolver() {
+		this(ForkJoinPool.commonPool());
+	} // end of ParallelBidirectionalSolver()
+
+
+	/**
+	 * @param pool Pool the search from the exit runs on.
+	 */
+	public ParallelBidirectionalSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	} // end of ParallelBidirectionalSolver()
+
+
+	@Override
+	public void solveMaze(Maze maze) {
+		solve(maze).draw(maze);
+	} // end of solveMaze()
+
+
+	@Override
+	public SolveResult solve(Maze maze) {
+		long start = System.nanoTime();
+		this.maze = maze;
+		int cellNum = maze.cellCount();
+		if (owner.length() != cellNum) {
+			owner = new AtomicIntegerArray(cellNum);
+			parent = new int[cellNum];
+			queues[0] = new int[cellNum];
+			queues[1] = new int[cellNum];
+		}
+		else {
+			// only the cells claimed last time have an owner
+			for (int s = 0; s < 2; s++) {
+				for (int i = 0; i < claimed[s]; i++)
+					owner.set(queues[s][i], FREE);
+			}
+		}
+		claimed[0] = 0;
+		claimed[1] = 0;
+		meeting.set(-1);
+		isMet = false;
+		solved = false;
+		pathLength = 0;
+
+		int entrance = maze.id(maze.entrance.r, maze.entrance.c);
+		int exit = maze.id(maze.exit.r, maze.exit.c);
+		if (entrance == exit) {
+			// the entrance search claims the one cell, as it would its start
+			owner.set(entrance, FROM_ENTRANCE);
+			queues[0][0] = entrance;
+			claimed[0] = 1;
+			solved = true;
+			pathLength = 1;
+			return new SolveResult(true, new int[] { entrance }, cellsExplored(), PHASES, new long[] { System.nanoTime() - start, 0 });
+		}
+		owner.set(entrance, FROM_ENTRANCE);
+		owner.set(exit, FROM_EXIT);
+		parent[entrance] = entrance;
+		parent[exit] = exit;
+
+		ForkJoinTask<?> exitSearch = pool.submit(() -> search(FROM_EXIT, exit));
+		search(FROM_ENTRANCE, entrance);
+		exitSearch.join();
+
+		long met = meeting.get();
+		long searched = System.nanoTime();
+		if (met < 0)
+			return new SolveResult(false, null, cellsExplored(), PHASES, new long[] { searched - start, 0 });
+		solved = true;
+		int from = (int) (met >>> 32);
+		int to = (int) met;
+
+		// entrance to the meeting point along the links of the entrance side, put in
+		// order from its end, then the meeting point to the exit along the exit side
+		int entranceSide = 1;
+		for (int id = from; id != entrance; id = parent[id])
+			entranceSide++;
+		pathLength = entranceSide;
+		for (int id = to; id != exit; id = parent[id])
+			pathLength++;
+		pathLength++;
+		int path[] = new int[pathLength];
+		for (int i = entranceSide - 1, id = from; i >= 0; i--, id = parent[id])
+			path[i] = id;
+		for (int i = entranceSide, id = to; i < pathLength; i++, id = parent[id])
+			path[i] = id;
+		long nanos[] = { searched - start, System.nanoTime() - searched };
+		return new SolveResult(true, path, cellsExplored(), PHASES, nanos);
+	} // end of solve()
+
+
+	/**
+	 * Breadth-first search from start, until it runs out of cells or the searches met.
+	 * @param side Owner tag of the search.
+	 * @param start Entrance or exit.
+	 */
+	private void search(int side, int start) {
+		int dirs[] = maze.directions();
+		int queue[] = queues[side - 1];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = start;
+
+		while (head < tail && !isMet) {
+			int id = queue[head++];
+			for (int k : dirs) {
+				if (maze.isOpen(id, k))
+					tail = visit(side, id, maze.neighbour(id, k), queue, tail);
+			}
+			tail = visit(side, id, maze.tunnel(id), queue, tail);
+		}
+		claimed[side - 1] = tail;
+	} // end of search()
+
+
+	/**
+	 * Claim cell next, reached from cell id, or record the meeting if the other search
+	 * has it.
+	 * @param side Owner tag of the search.
+	 * @param id Id of a cell claimed by side.
+	 * @param next Id of a cell next to it, -1 if there is none.
+	 * @param queue Queue of the search.
+	 * @param tail Index after the last cell of the queue.
+	 * @return The new tail of the queue.
+	 */
+	private int visit(int side, int id, int next, int queue[], int tail) {
+		if (next < 0)
+			return tail;
+		if (owner.compareAndSet(next, FREE, side)) {
+			parent[next] = id;
+			queue[tail++] = next;
+		}
+		else if (owner.get(next) != side) {
+			long met = side == FROM_ENTRANCE ? (long) id << 32 | next : (long) next << 32 | id;
+			meeting.compareAndSet(-1, met);
+			isMet = true;
+		}
+		return tail;
+	} // end of visit()
+
+
+	@Override
+	public boolean isSolved() {
+		return solved;
+	} // end of isSolved()
+
+
+	/**
+	 * Returns the number of cells claimed by the two searches together.
+	 */
+	@Override
+	public int cellsExplored() {
+		return claimed[0] + claimed[1];
+	} // end of cellsExplored()
+
+
+	/**
+	 * Use after solveMaze(maze).
+	 * @return Number of cells of the path found, entrance and exit included, 0 if the
+	 * maze was not solved.
+	 */
+	public int pathLength() {
+		return pathLength;
+	} // end of pathLength()
+
+} // end of class ParallelBidirectionalSolver
@@ -0,0 +1,84 @@
+package mazeSolver;
+
+import maze.Maze;
+
+/**
+ * Outcome of MazeSolver.solve(): whether the maze was solved, the solution as the ids
+ * of its cells (see Maze.id()), the number of cells explored and how long each phase
+ * of the solver took. The path is checked by Maze.validate(int[]) in O(path length),
+ * without foot prints.
+ */
+public class SolveResult {
+
+	public final boolean solved;
+
+	/**
+	 * Ids of the cells of the solution, from entrance to exit, null if the maze was not
+	 * solved or the solver only draws foot prints
+	 */
+	public final int path[];
+
+	/**
+	 * Number of cells explored, see MazeSolver.cellsExplored()
+	 */
+	public final int cellsExplored;
+
+	/**
+	 * Names of the phases of the solver, in order
+	 */
+	public final String phases[];
+
+	/**
+	 * phaseNanos[i] is the number of nanoseconds spent in phases[i]
+	 */
+	public final long phaseNanos[];
+
+
+	/**
+	 * @param solved True if the maze was solved. Otherwise false.
+	 * @param path Ids of the cells of the solution, from entrance to exit, null if there is none.
+	 * @param cellsExplored Number of cells explored.
+	 * @param phases Names of the phases of the solver.
+	 * @param phaseNanos Nanoseconds spent in each phase.
+	 */
+	public SolveResult(boolean solved, int path[], int cellsExplored, String phases[], long phaseNanos[]) {
+		this.solved = solved;
+		this.path = path;
+		this.cellsExplored = cellsExplored;
+		this.phases = phases;
+		this.phaseNanos = phaseNanos;
+	} // end of SolveResult()
+
+
+	/**
+	 * @return Number of cells of the solution, entrance and exit included, 0 if there is no path.
+	 */
+	public int pathLength() {
+		return path != null ? path.length : 0;
+	} // end of pathLength()
+
+
+	/**
+	 * @return Nanoseconds spent in all phases.
+	 */
+	public long nanos() {
+		long sum = 0;
+		for (long t : phaseNanos)
+			sum += t;
+		return sum;
+	} // end of nanos()
+
+
+	/**
+	 * Draw a foot print at every cell of the path, from entrance to exit, as solvers
+	 * drawing their solution do.
+	 * @param maze The maze solved.
+	 */
+	public void draw(Maze maze) {
+		if (path == null)
+			return;
+		for (int id : path)
+			maze.drawFtPrt(id);
+	} // end of draw()
+
+} // end of class SolveResult
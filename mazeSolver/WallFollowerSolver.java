@@ -1,9 +1,9 @@
 package mazeSolver;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedList;
 import maze.Cell;
+import maze.CellSet;
 import maze.Maze;
 import static maze.Maze.NUM_DIR;
 import static maze.Maze.oppoDir;
@@ -14,8 +14,8 @@ import static maze.Maze.oppoDir;
  * @author s3586372 Rahul Raghavan
  */
 public class WallFollowerSolver implements MazeSolver {
-        // Stores the set of all explored cells
-        private HashSet exploredCells = new HashSet<>();
+        // Stores the set of all explored cells, by cell id
+        private CellSet exploredCells = new CellSet(0);
 	
         // Is the maze solved
         private boolean solved = false;
@@ -37,6 +37,9 @@ public class WallFollowerSolver implements MazeSolver {
          */        
 	@Override
 	public void solveMaze(Maze maze) {
+            // Work on the cell view of the maze
+            maze.buildCellView();
+            exploredCells = CellSet.reuse(exploredCells, maze.cellCount());
             // Store entrance and exit to compute isSolved
             mazeEntrance = maze.entrance;
             mazeExit = maze.exit;
@@ -52,7 +55,7 @@ public class WallFollowerSolver implements MazeSolver {
                 // Mark the current cell as visited
                 maze.drawFtPrt(currCell);
                 // Add cell to the list of all explored cells
-                exploredCells.add(currCell);
+                exploredCells.add(maze.id(currCell.r, currCell.c));
 
                 /**
                  * 1. Find the direction from which the first cell (entrance) 
@@ -67,7 +70,7 @@ public class WallFollowerSolver implements MazeSolver {
                             // Check if direction is valid
                             if(currCell.wall[i] != null) {
                                 // Check if neighbour does not exist and wall does not exist
-                                if(currCell.neigh[i] == null && !currCell.wall[i].present) {
+                                if(currCell.neigh[i] == null && !currCell.wall[i].isPresent()) {
                                     // Choose this direction
                                     entranceDir = i;
                                     break;
@@ -127,7 +130,7 @@ public class WallFollowerSolver implements MazeSolver {
                         // 3. Take the first opening, and travel to next cell
                         if(currCell.wall[trueDir] != null && currCell.neigh[trueDir] != null) {
                             // Check that wall does not exist
-                            if(!currCell.wall[trueDir].present) {
+                            if(!currCell.wall[trueDir].isPresent()) {
                                 // Move to the next cell
                                 currCell = currCell.neigh[trueDir];
                                 
@@ -135,7 +138,7 @@ public class WallFollowerSolver implements MazeSolver {
                                 // So add the exit to the necessary data structures
                                 if(currCell.equals(mazeExit)) {
                                     maze.drawFtPrt(currCell);
-                                    exploredCells.add(currCell);
+                                    exploredCells.add(maze.id(currCell.r, currCell.c));
                                     
                                     // If solver has reached the exit, mark as solved
                                     solved = true;
@@ -164,8 +167,8 @@ public class WallFollowerSolver implements MazeSolver {
 
         /**
          * Returns the size of all unique cells explored while solving the maze.
-         * This is computed by storing each cell visited in a HashSet which 
-         * only returns the unique Cells.
+         * This is computed by storing the id of each cell visited in a CellSet
+         * which only counts the unique Cells.
          */        
 	@Override
 	public int cellsExplored() {